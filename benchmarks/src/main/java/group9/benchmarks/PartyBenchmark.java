@@ -0,0 +1,156 @@
+package group9.benchmarks;
+
+import group9.ATriNeS;
+import group9.Agent9;
+import group9.Athrines;
+import group9.HardHeaded;
+import group9.tools.LocalSetup;
+import group9.tools.ScriptedOpponent;
+import group9.tools.SyntheticDomain;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import negotiator.AgentID;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.EndNegotiation;
+import negotiator.actions.Offer;
+import negotiator.parties.AbstractNegotiationParty;
+import negotiator.timeline.DiscreteTimeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and allocations of chooseAction and receiveMessage of our parties,
+ * on synthetic domains from 3 issues of 3 values up to 20 issues of 10
+ * values. Before each iteration, the party is driven by scripted opponents
+ * through a session of ROUNDS rounds up to the measured time, where the
+ * timeline is then held.
+ *
+ * The sample time mode reports the p50 and p99 latencies, and the gc profiler
+ * (-prof gc) the bytes allocated per call, as gc.alloc.rate.norm. Work handed
+ * to other threads, such as Agent9's analysis phase, is not included.
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar -prof gc [-p parties=3,5,10]
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PartyBenchmark {
+    private static final int ROUNDS = 2000;
+    private static final List<Class<? extends Action>> POSSIBLE_ACTIONS =
+            Arrays.asList(Accept.class, Offer.class, EndNegotiation.class);
+
+    /**
+     * Issues x values of the domain.
+     */
+    @Param({"3x3", "5x5", "10x5", "10x10", "20x10"})
+    public String domain;
+
+    @Param({"HardHeaded", "ATriNeS", "Athrines", "Agent9"})
+    public String party;
+
+    @Param({"0.05", "0.5", "0.95"})
+    public double time;
+
+    /**
+     * Number of parties of the session, including the benchmarked one.
+     */
+    @Param({"3"})
+    public int parties;
+
+    private SyntheticDomain syntheticDomain;
+    private AbstractNegotiationParty benchmarked;
+    private AgentID[] opponentIds;
+    /**
+     * Offers of the opponents at the measured time, received in turn.
+     */
+    private Offer[] offers;
+    private int nextOffer;
+
+    @Setup(Level.Trial)
+    public void createDomain() throws Exception {
+        if (parties < 2) {
+            throw new IllegalArgumentException("A session needs at least 2 parties: " + parties);
+        }
+        String[] size = domain.split("x");
+        syntheticDomain = new SyntheticDomain(Integer.parseInt(size[0]), Integer.parseInt(size[1]), 42);
+    }
+
+    /**
+     * Drives a new party up to the measured time.
+     */
+    @Setup(Level.Iteration)
+    public void startSession() throws Exception {
+        DiscreteTimeline timeline = new DiscreteTimeline(ROUNDS);
+        benchmarked = LocalSetup.init(createParty(), syntheticDomain.createProfile(), timeline, ROUNDS, 1,
+                "Benchmarked@0");
+
+        ScriptedOpponent[] opponents = new ScriptedOpponent[parties - 1];
+        opponentIds = new AgentID[opponents.length];
+        for (int o = 0; o < opponents.length; o++) {
+            opponentIds[o] = new AgentID("Opponent@" + (o + 1));
+            opponents[o] = new ScriptedOpponent(opponentIds[o], syntheticDomain.createProfile(), 0.5, o);
+        }
+
+        while (timeline.getTime() < time) {
+            benchmarked.chooseAction(POSSIBLE_ACTIONS);
+            for (ScriptedOpponent opponent : opponents) {
+                benchmarked.receiveMessage(opponent.getId(), opponent.nextOffer(timeline.getTime()));
+            }
+            timeline.increment();
+        }
+
+        offers = new Offer[opponents.length * 16];
+        for (int o = 0; o < offers.length; o++) {
+            offers[o] = opponents[o % opponents.length].nextOffer(timeline.getTime());
+        }
+        nextOffer = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void endSession() {
+        benchmarked.negotiationEnded(null);
+    }
+
+    @Benchmark
+    public Action chooseAction() {
+        return benchmarked.chooseAction(POSSIBLE_ACTIONS);
+    }
+
+    @Benchmark
+    public void receiveMessage() {
+        Offer offer = offers[nextOffer];
+        benchmarked.receiveMessage(opponentIds[nextOffer % opponentIds.length], offer);
+        nextOffer = nextOffer + 1 == offers.length ? 0 : nextOffer + 1;
+    }
+
+    private AbstractNegotiationParty createParty() {
+        switch (party) {
+        case "HardHeaded":
+            return new HardHeaded();
+        case "ATriNeS":
+            return new ATriNeS();
+        case "Athrines":
+            return new Athrines();
+        case "Agent9":
+            return new Agent9();
+        default:
+            throw new IllegalArgumentException("Unknown party: " + party);
+        }
+    }
+}
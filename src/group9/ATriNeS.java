@@ -8,14 +8,34 @@ import negotiator.actions.Action;
 import negotiator.actions.Offer;
 import negotiator.parties.AbstractNegotiationParty;
 import negotiator.parties.NegotiationInfo;
+import negotiator.utility.AdditiveUtilitySpace;
 
 /**
  * Created by Michael on 17/11/2017.
  */
-public class ATriNeS extends AbstractNegotiationParty {
+public class ATriNeS extends AbstractNegotiationParty implements ObservationConsumer {
     private final String description = "Multilateral implementation of ABiNeS";
 
-    private final HashMap<AgentID, AgentActionHistory> history = new HashMap<>();
+    /**
+     * Index of each opponent in the arrays below, in order of first message.
+     */
+    private final HashMap<AgentID, Integer> _opponentIndices = new HashMap<>();
+
+    private AgentID[] _opponents = new AgentID[0];
+    private AgentActionHistory[] _histories = new AgentActionHistory[0];
+
+    /**
+     * Whether an opponent sent a second message, so that every opponent has been met, and every opponent met has
+     * sent an offer, so that all the histories hold a bid.
+     */
+    private boolean _opponentsKnown;
+    private boolean _opponentsMet;
+
+    /**
+     * Whether each opponent sent an offer, at the index of the opponent, and the number of those which did not.
+     */
+    private boolean[] _offered = new boolean[0];
+    private int _silentOpponents;
 
     /**
      * Determines how high we set our threshold based on that of our opponents.
@@ -32,65 +52,191 @@ public class ATriNeS extends AbstractNegotiationParty {
 
     private static final float CONCEDE_MIN = 0.5f;
 
-    private static final float MAX_BID_SEARCH_TIME = 0.002f;
-
-    private static final float IDLE_BID_SEARCH_TIME = 0.0003f;
-
     private static final float MAX_ACCEPTED_BID_WEIGHT = 6f;
 
     private static final float MAX_REJECTED_BID_WEIGHT = 3f;
 
     private static final float CURVE_VALUE = 10f;
 
-    private float acceptThreshold = 1f;
+    /**
+     * Maximum number of candidate bids scored per turn. When the domain is indexed, every bid above the threshold
+     * is a candidate, up to this number.
+     */
+    private static final int MAX_CANDIDATES = 20000;
 
-    private AgentID _opp1;
-    private AgentID _opp2;
+    /**
+     * Up to this number of opponents, the Pareto archive has one dimension per opponent. Beyond, most bids would be
+     * on the frontier, so it only has the mean predicted utility of the opponents.
+     */
+    private static final int MAX_PARETO_OPPONENTS = 2;
 
-    private Action _opp1LastAction = null;
-    private Action _opp2LastAction = null;
+    /**
+     * Largest difference between the threshold of a turn and the one predicted for it for the candidates gathered
+     * between the turns to be used.
+     */
+    private static final float SPECULATION_TOLERANCE = 0.002f;
+
+    private float acceptThreshold = 1f;
 
     private Bid lastReceivedOffer;
 
+    private ObservationStore observationStore;
+
+    /**
+     * All the bids of the domain sorted by our utility, or null if the domain is too large to be indexed.
+     */
+    private OutcomeIndex _outcomeIndex;
+
+    /**
+     * Extreme bids and utility histogram of the domain.
+     */
+    private CompiledDomain _compiledDomain;
+
+    /**
+     * Our utility of the bids evaluated so far in the session.
+     */
+    private UtilityCache _utilityCache;
+
+    /**
+     * Candidate bids of the turn.
+     */
+    private CandidateBatch _candidates;
+
+    /**
+     * Draws random bids above the threshold when the domain is not indexed.
+     */
+    private BidSampler _bidSampler;
+    private int[] _sampledValues;
+
+    /**
+     * Every candidate bid found so far, with the Pareto frontier of our utility and the predicted utilities of the
+     * opponents. Created once every opponent is known, and recreated if another one shows up.
+     */
+    private ParetoArchive _archive;
+    private int _archiveOpponents;
+
+    /**
+     * Predicted threshold and utility of the bid being valued of each opponent, at the index of the opponent.
+     */
+    private float[] _thresholds = new float[0];
+    private float[] _opponentUtilities = new float[0];
+
+    /**
+     * Bids of the archive valued in the turn.
+     */
+    private int[] _frontier = new int[64];
+
     private int _round;
 
+    /**
+     * Latency histograms of the methods, dumped at the end of the session.
+     */
+    private final Timings _timings = new Timings("ATriNeS");
+
+    /**
+     * Wall time the bid search may take in the current turn.
+     */
+    private final TurnBudget _turnBudget = new TurnBudget();
+
+    /**
+     * Time until which only the max utility bid is offered.
+     */
+    private double _openingEnd = 0.1;
+
+    /**
+     * Candidate bids for the threshold of the next turn, gathered between the turns in their own batch, with their
+     * own sampler, or null if the parties are not pipelined.
+     */
+    private Speculation<CandidateBatch> _speculation;
+    private CandidateBatch _speculativeCandidates;
+    private BidSampler _speculativeSampler;
+    private int[] _speculativeValues;
+    private Random _speculativeRandom;
+
 
 
     @Override
     public void init(NegotiationInfo info) {
         super.init(info);
 
+        if(observationStore == null)
+            observationStore = new ObservationStore((AdditiveUtilitySpace) info.getUtilitySpace());
+
+        _compiledDomain = observationStore.getCompiledDomain();
+        _utilityCache = new UtilityCache(observationStore.getDomainIndex());
+        _outcomeIndex = _compiledDomain.getOutcomeIndex();
+        _candidates = new CandidateBatch(observationStore.getDomainIndex());
+        _bidSampler = new BidSampler(observationStore.getDomainIndex(), rand);
+        _sampledValues = new int[observationStore.getDomainIndex().getIssueCount()];
+
+        if(Speculation.ENABLED) {
+            _speculation = new Speculation<>("ATriNeS speculation");
+            _speculativeCandidates = new CandidateBatch(observationStore.getDomainIndex());
+            _speculativeRandom = new Random(rand.nextLong());
+            _speculativeSampler = new BidSampler(observationStore.getDomainIndex(), _speculativeRandom);
+            _speculativeValues = new int[observationStore.getDomainIndex().getIssueCount()];
+        }
+
         System.out.println("Init");
     }
 
     @Override
     public Action chooseAction(List<Class<? extends Action>> list) {
+        long start = _timings.start();
+        _turnBudget.startTurn(getTimeLine().getTime());
+        Action action = SelectAction(list);
+        _turnBudget.endTurn();
+        _timings.stop("chooseAction", start);
+
+        if(_speculation != null && action instanceof Offer)
+            Speculate();
+
+        return action;
+    }
+
+    /**
+     * Starts gathering the candidate bids for the threshold predicted for the next turn, assuming the predicted
+     * thresholds of the opponents stay the same.
+     */
+    private void Speculate() {
+        double nextTime = _turnBudget.getNextTurnTime();
+
+        if(Double.isNaN(nextTime) || nextTime <= _openingEnd || !_opponentsKnown || lastReceivedOffer == null)
+            return;
+
+        float threshold = CalculateAcceptThreshold(_thresholds, nextTime);
+        TurnBudget budget = _turnBudget.detach();
+
+        _speculation.start(threshold, () -> GetBidsAboveThreshold(threshold, _speculativeCandidates,
+                _speculativeSampler, _speculativeValues, _speculativeRandom, budget));
+    }
+
+    private Action SelectAction(List<Class<? extends Action>> list) {
 
         _round += 1;
         
         // Simulate the first 10% of testing
         double time = getTimeLine().getTime();
-        if(time <= 0.1) {
+        if(time <= _openingEnd) {
             return new Offer(this.getPartyId(), getMaxUtilityBid());
         }
 
         //System.out.println("----------------------------------");
         //System.out.println("Round: " + _round);
 
-        // Offer our best bid as the first bid, until we have information about our opponents.
-        if(_opp1LastAction == null || _opp2LastAction == null) {
+        // Offer our best bid as the first bid, until we have information about all our opponents.
+        if(!_opponentsKnown || lastReceivedOffer == null) {
             return new Offer(this.getPartyId(), this.getMaxUtilityBid());
         }
 
-        AgentActionHistory history1 = history.get(_opp1);
-        AgentActionHistory history2 = history.get(_opp2);
-
         // Calculate acceptance thresholds.
-        float opp1Threshold = history1.GetPredictedThreshold();
-        float opp2Threshold = history2.GetPredictedThreshold();
-        acceptThreshold = CalculateAcceptThreshold(opp1Threshold, opp2Threshold, this.timeline.getTime());
+        long start = _timings.start();
+        for(int o = 0; o < _opponents.length; o++)
+            _thresholds[o] = _histories[o].GetPredictedThreshold();
+        _timings.stop("GetPredictedThreshold", start);
+        acceptThreshold = CalculateAcceptThreshold(_thresholds, this.timeline.getTime());
 
-        //System.out.println(opp1Threshold + ", " + opp2Threshold + ", " + acceptThreshold);
+        //System.out.println(Arrays.toString(_thresholds) + ", " + acceptThreshold);
         //history1.accumulatedFrequency.printFrequency();
         //history1.accumulatedFrequency.printCount();
         //history2.accumulatedFrequency.printFrequency();
@@ -99,19 +245,29 @@ public class ATriNeS extends AbstractNegotiationParty {
 
         // Accept the bid if it meets our acceptance threshold.
         // TODO improve this.
-        if(this.utilitySpace.getUtility(lastReceivedOffer) > acceptThreshold) {
+        if(_utilityCache.getUtility(lastReceivedOffer) > acceptThreshold) {
             return new Accept(this.getPartyId(), lastReceivedOffer);
         }
 
-        // Generate a set of new bids better than our acceptanceThreshold.
-        HashSet<Bid> bids = GetBidsAboveThreshold(acceptThreshold);
+        // Generate a set of new bids better than our acceptanceThreshold, unless they were gathered for about the
+        // same threshold since our last turn.
+        start = _timings.start();
+        CandidateBatch bids = _speculation == null ? null : _speculation.take(acceptThreshold, SPECULATION_TOLERANCE);
+
+        if(bids != null) {
+            _timings.stop("speculated", start);
+        } else {
+            bids = GetBidsAboveThreshold(acceptThreshold);
+            _timings.stop("GetBidsAboveThreshold", start);
+        }
 
         // Choose the best bid based on the CalculatedBidValue
-        Bid bid = ChooseBid(bids, opp1Threshold, opp2Threshold);
+        start = _timings.start();
+        Bid bid = ChooseBid(bids, _thresholds);
+        _timings.stop("ChooseBid", start);
 
         //System.out.println("Found " + bids.size() + " bids.");
         //System.out.println(bid);
-        //System.out.println(history1.accumulatedFrequency.GetPredictedUtility(bid) + ", " + history2.accumulatedFrequency.GetPredictedUtility(bid) + ", " + this.getUtility(bid));
         //System.out.println("----------------------------------");
 
         return new Offer(this.getPartyId(), bid);
@@ -121,13 +277,17 @@ public class ATriNeS extends AbstractNegotiationParty {
      * Calculate our acceptance threshold based on the predicted thresholds of our opponents. Our threshold should be
      * greater than the maximum threshold of our opponents, although it should also decay over time if our opponents thresholds
      * remain to high.
-     * @param opp1Threshold
-     * @param opp2Threshold
+     * @param oppThresholds The predicted threshold of each opponent.
      * @param time
      * @return
      */
-    public float CalculateAcceptThreshold(float opp1Threshold, float opp2Threshold, double time) {
-        float threshold = Math.max(opp1Threshold, opp2Threshold) * THRESHOLD_GREED;
+    public float CalculateAcceptThreshold(float[] oppThresholds, double time) {
+        float maxThreshold = 0f;
+
+        for(float oppThreshold : oppThresholds)
+            maxThreshold = Math.max(maxThreshold, oppThreshold);
+
+        float threshold = maxThreshold * THRESHOLD_GREED;
 
 
         float timeAdjusted;
@@ -142,7 +302,6 @@ public class ATriNeS extends AbstractNegotiationParty {
             float grad = (y2 - y1) / (x2 - x1);
 
             float ans = grad * ((float) time - x1) + y1;
-            System.out.println(ans);
 
             timeAdjusted = Math.min(threshold, ans);
         } else {
@@ -153,85 +312,194 @@ public class ATriNeS extends AbstractNegotiationParty {
     }
 
     /**
-     * Get a set of bids that are above a threshold.
+     * Get a batch of bids that are above a threshold. If the domain is indexed, these are all the bids above the
+     * threshold, or MAX_CANDIDATES of them drawn at random. Otherwise, random bids above the threshold are sampled
+     * until the budget of the turn is spent, no new bid was found for a while, or the utility histogram of the
+     * domain tells that no bid is left to find.
      * @param threshold
      * @return
      */
-    public HashSet<Bid> GetBidsAboveThreshold(float threshold) {
-        HashSet<Bid> bids = new HashSet<>();
-        bids.add(getMaxUtilityBid());
+    public CandidateBatch GetBidsAboveThreshold(float threshold) {
+        return GetBidsAboveThreshold(threshold, _candidates, _bidSampler, _sampledValues, rand, _turnBudget);
+    }
+
+    /**
+     * Same as GetBidsAboveThreshold(float), into the given batch, with the given buffers. Only reads fields which
+     * do not change after init, so that it can run between the turns. Stops sampling once the thread is interrupted,
+     * which is how a speculation is cancelled.
+     */
+    private CandidateBatch GetBidsAboveThreshold(float threshold, CandidateBatch candidates, BidSampler bidSampler,
+                                                 int[] sampledValues, Random random, TurnBudget turnBudget) {
+        candidates.clear();
+
+        if(_outcomeIndex != null) {
+            int available = _outcomeIndex.countAtLeast(threshold);
+
+            if(available <= MAX_CANDIDATES) {
+                for(int rank = 0; rank < available; rank++)
+                    candidates.add(_outcomeIndex.getKey(rank));
+            } else {
+                for(int n = 0; n < MAX_CANDIDATES; n++)
+                    candidates.add(_outcomeIndex.getKey(random.nextInt(available)));
+            }
 
-        double startTime = this.timeline.getTime();
-        double endTime = startTime + MAX_BID_SEARCH_TIME;
+            return candidates;
+        }
 
-        double lastBidFoundTime = startTime;
+        DomainIndex domainIndex = observationStore.getDomainIndex();
+        LongHashSet found = new LongHashSet();
 
-        while(this.timeline.getTime() < endTime && this.timeline.getTime() - lastBidFoundTime < IDLE_BID_SEARCH_TIME) {
-            Bid bid = generateRandomBid();
+        candidates.add(_compiledDomain.getBestValues());
+        found.add(domainIndex.fingerprint(_compiledDomain.getBestValues()));
 
-            if(bids.contains(bid))
-                continue;
+        int maxCandidates = (int) Math.min(MAX_CANDIDATES, _compiledDomain.getCountBound(threshold));
+        long lastBidFoundTime = System.nanoTime();
 
-            float utility = (float) this.utilitySpace.getUtility(bid);
+        while(candidates.size() < maxCandidates && !turnBudget.isIdle(lastBidFoundTime)
+                && !Thread.currentThread().isInterrupted()) {
+            if(!bidSampler.sample(threshold, sampledValues))
+                break;
 
-            if(utility >= threshold) {
-                bids.add(bid);
-                lastBidFoundTime = this.timeline.getTime();
+            if(found.add(domainIndex.fingerprint(sampledValues))) {
+                candidates.add(sampledValues);
+                lastBidFoundTime = System.nanoTime();
             }
-
-            if(this.timeline.getTime() >= 1)
-                return bids;
         }
 
-        return bids;
+        return candidates;
     }
 
     /**
-     * Chooses the best bid from a set of bids. Based on the CalculatedBidValue()
+     * Chooses the best bid based on the CalculatedBidValue(). The new bids are added to the Pareto archive, so that
+     * the bids found in the earlier turns remain candidates, and the best bid of the archive above our acceptance
+     * threshold is chosen.
+     *
+     * The value of a bid grows with our utility, but with the predicted utility of an opponent only up to its
+     * threshold (see CalculateDiffValue). So if no bid of the frontier is predicted above the threshold of an
+     * opponent, every other bid is dominated by a bid of the frontier valued at least as much, and only the frontier
+     * is valued. Otherwise, every bid of the archive above our threshold is.
+     *
+     * With more than MAX_PARETO_OPPONENTS opponents, the archive only has the mean predicted utility of the
+     * opponents, summed per value of each issue by AccumulatedFrequencySum, so that adding a candidate costs
+     * O(issues) whatever the number of opponents. Only the bids of its frontier are then valued opponent by opponent.
+     * This is an approximation: the frontier over the mean does not bound the value of the bids.
      * @param bids
-     * @param opp1Threshold
-     * @param opp2Threshold
+     * @param oppThresholds The predicted threshold of each opponent.
      * @return
      */
-    public Bid ChooseBid(HashSet<Bid> bids, float opp1Threshold, float opp2Threshold) {
+    public Bid ChooseBid(CandidateBatch bids, float[] oppThresholds) {
+        boolean perOpponent = _opponents.length <= MAX_PARETO_OPPONENTS;
+
+        if(_archive == null || _archiveOpponents != _opponents.length) {
+            AccumulatedFrequency[] models = new AccumulatedFrequency[_opponents.length];
+
+            for(int o = 0; o < _opponents.length; o++)
+                models[o] = _histories[o].accumulatedFrequency;
+
+            if(perOpponent)
+                _archive = new ParetoArchive(observationStore.getDomainIndex(), models);
+            else
+                _archive = new ParetoArchive(observationStore.getDomainIndex(),
+                        new OpponentUtilityModel[] { new AccumulatedFrequencySum(models) });
+
+            _archiveOpponents = _opponents.length;
+        }
+
+        _archive.addAll(bids);
+
+        int count = GetArchivedBids(true);
+
+        if(perOpponent && !IsBelowThresholds(count, oppThresholds))
+            count = GetArchivedBids(false);
+
         float value = 0f;
-        Bid bestBid = getMaxUtilityBid();
+        int best = -1;
 
-        for(Bid bid : bids) {
-            float bidValue = CalculateBidValue(bid, opp1Threshold, opp2Threshold);
+        for(int f = 0; f < count; f++) {
+            int b = _frontier[f];
+
+            if(perOpponent) {
+                for(int o = 0; o < _opponents.length; o++)
+                    _opponentUtilities[o] = _archive.getOpponentUtility(o, b);
+            } else {
+                // The frontier is small, so the utility of each opponent is only predicted for its bids
+                _archive.getValues(b, _sampledValues);
+
+                for(int o = 0; o < _opponents.length; o++)
+                    _opponentUtilities[o] = _histories[o].accumulatedFrequency.GetPredictedUtility(_sampledValues);
+            }
+
+            float bidValue = CalculateBidValue((float) _archive.getOurUtility(b), _opponentUtilities, oppThresholds);
 
             if(bidValue < value)
                 continue;
 
             value = bidValue;
-            bestBid = bid;
+            best = b;
+        }
+
+        if(best < 0)
+            return getMaxUtilityBid();
+
+        return _archive.toBid(best);
+    }
+
+    /**
+     * Writes into _frontier the bids of the archive above our acceptance threshold.
+     * @param frontierOnly Whether to only write those of the frontier.
+     * @return The number of bids written.
+     */
+    private int GetArchivedBids(boolean frontierOnly) {
+        int count = frontierOnly ? _archive.getFrontier(acceptThreshold, _frontier)
+                : _archive.getBidsAbove(acceptThreshold, _frontier);
+
+        if(count > _frontier.length) {
+            _frontier = new int[count * 2];
+            count = frontierOnly ? _archive.getFrontier(acceptThreshold, _frontier)
+                    : _archive.getBidsAbove(acceptThreshold, _frontier);
+        }
+
+        return count;
+    }
+
+    /**
+     * @return Whether no bid of the first count ones of _frontier is predicted above the threshold of an opponent.
+     */
+    private boolean IsBelowThresholds(int count, float[] oppThresholds) {
+        for(int f = 0; f < count; f++) {
+            for(int o = 0; o < _opponents.length; o++) {
+                if(_archive.getOpponentUtility(o, _frontier[f]) > oppThresholds[o])
+                    return false;
+            }
         }
 
-        return bestBid;
+        return true;
     }
 
     /**
      * Calculates a value for a bid based on our utility and the predicted utility of our opponents.
      * @param bid
-     * @param opp1Threshold
-     * @param opp2Threshold
+     * @param oppThresholds The predicted threshold of each opponent.
      * @return
      */
-    public float CalculateBidValue(Bid bid, float opp1Threshold, float opp2Threshold) {
-        AgentActionHistory opp1History = history.get(_opp1);
-        AgentActionHistory opp2History = history.get(_opp2);
+    public float CalculateBidValue(Bid bid, float[] oppThresholds) {
+        for(int o = 0; o < _opponents.length; o++)
+            _opponentUtilities[o] = _histories[o].accumulatedFrequency.GetPredictedUtility(bid);
 
-        float opp1Utility = opp1History.accumulatedFrequency.GetPredictedUtility(bid);
-        float opp2Utility = opp2History.accumulatedFrequency.GetPredictedUtility(bid);
-        float ourUtility = (float) this.utilitySpace.getUtility(bid);
+        float ourUtility = (float) _utilityCache.getUtility(bid);
 
-        float opp1DiffValue = CalculateDiffValue(opp1Utility - opp1Threshold);
-        float opp2DiffValue = CalculateDiffValue(opp2Utility - opp2Threshold);
-        float variance = rand.nextFloat() * (float) (1 - this.timeline.getTime());
-        float ourDiffValue = ourUtility - acceptThreshold;
+        return CalculateBidValue(ourUtility, _opponentUtilities, oppThresholds);
+    }
 
+    /**
+     * Same as CalculateBidValue(Bid, float[]), for utilities already computed.
+     * @param oppUtilities The predicted utility of the bid for each opponent.
+     */
+    public float CalculateBidValue(float ourUtility, float[] oppUtilities, float[] oppThresholds) {
+        float ans = ourUtility - acceptThreshold;
 
-        float ans = ourDiffValue + opp1DiffValue + opp2DiffValue;
+        for(int o = 0; o < oppThresholds.length; o++)
+            ans += CalculateDiffValue(oppUtilities[o] - oppThresholds[o]);
 
         return ans;
     }
@@ -247,32 +515,87 @@ public class ATriNeS extends AbstractNegotiationParty {
     public void receiveMessage(AgentID sender, Action act) {
         super.receiveMessage(sender, act);
 
+        if(sender == null)
+            return;
+
+        observe(observationStore.record(sender, act, this.timeline.getTime()));
+    }
+
+    @Override
+    public void useObservationStore(ObservationStore store) {
+        observationStore = store;
+    }
+
+    @Override
+    public void endOpening(double time) {
+        _openingEnd = time;
+    }
+
+    @Override
+    public void observe(Observation observation) {
+        AgentID sender = observation.getSender();
+        Action act = observation.getAction();
+
         if(sender == null)
             return;
 
         if(act instanceof Offer)
-            lastReceivedOffer = ((Offer) act).getBid();
+            lastReceivedOffer = observation.getBid();
 
-        if(_opp1 == null) {
-            _opp1 = sender;
-        }
+        // If sender of message doesn't have a history create one.
+        Integer index = _opponentIndices.get(sender);
+
+        if(index == null)
+            index = AddOpponent(sender);
+        else
+            _opponentsMet = true;
 
-        if(_opp2 == null && _opp1 != sender) {
-            _opp2 = sender;
+        if(act instanceof Offer && !_offered[index]) {
+            _offered[index] = true;
+            _silentOpponents -= 1;
         }
 
-        // If sender of message doesn't have a history create one.
-        if(!history.containsKey(sender))
-            history.put((sender), new AgentActionHistory(sender, this.utilitySpace.getDomain()));
+        _opponentsKnown = _opponentsMet && _silentOpponents == 0;
 
         // Add the action of the sender to their history.
-        history.get(sender).AddAction(act, (float) this.timeline.getTime());
+        long start = _timings.start();
+        _histories[index].AddObservation(observation);
+        _timings.stop("AddObservation", start);
+    }
+
+    /**
+     * Grows the arrays of the opponents by one.
+     * @return The index of the new opponent.
+     */
+    private int AddOpponent(AgentID sender) {
+        int index = _opponents.length;
+
+        _opponents = Arrays.copyOf(_opponents, index + 1);
+        _histories = Arrays.copyOf(_histories, index + 1);
+        _thresholds = Arrays.copyOf(_thresholds, index + 1);
+        _opponentUtilities = Arrays.copyOf(_opponentUtilities, index + 1);
+        _offered = Arrays.copyOf(_offered, index + 1);
+        _silentOpponents += 1;
+
+        _opponents[index] = sender;
+        _histories[index] = new AgentActionHistory(sender, observationStore.getDomainIndex());
+        _opponentIndices.put(sender, index);
+
+        return index;
+    }
 
-        if(sender == _opp1) {
-            _opp1LastAction = act;
-        } else if (sender == _opp2) {
-            _opp2LastAction = act;
+    @Override
+    public Map<String, String> negotiationEnded(Bid acceptedBid) {
+        if(_speculation != null) {
+            _speculation.close();
+            _speculation = null;
         }
+
+        for(AgentActionHistory history : _histories)
+            history.Close();
+
+        _timings.dump();
+        return super.negotiationEnded(acceptedBid);
     }
 
     @Override
@@ -290,11 +613,6 @@ public class ATriNeS extends AbstractNegotiationParty {
     }
 
     private Bid getMaxUtilityBid() {
-        try {
-            return this.utilitySpace.getMaxUtilityBid();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
+        return _compiledDomain.getMaxUtilityBid();
     }
 }
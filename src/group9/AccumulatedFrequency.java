@@ -3,145 +3,206 @@ package group9;
 import negotiator.Bid;
 import negotiator.Domain;
 import negotiator.issue.Issue;
-import negotiator.issue.IssueDiscrete;
-import negotiator.issue.Value;
-import negotiator.issue.ValueDiscrete;
 
 import java.util.*;
 
 /**
  * Created by Michael on 17/11/2017.
  */
-public class AccumulatedFrequency {
-    private HashMap<Value, Integer>[] _bidValueCount;
-    private HashMap<Value, Float>[] _accumulatedFrequency;
-    private HashSet<Bid> _countedBids;
+public class AccumulatedFrequency implements OpponentUtilityModel {
+    private int[][] _bidValueCount;
+    private float[][] _accumulatedFrequency;
+    /**
+     * Bids counted so far, only the first occurrence of a bid updating the frequencies. Bounded, so that the memory
+     * used does not grow with the length of the session.
+     */
+    private BidFilter _countedBids;
 
     private static final float LEARNING_CURVE = 0.1f;
 
     private float _uniqueBids;
     private float _totalBids;
 
-    private Integer _issueCount;
+    private int _issueCount;
 
-    private Domain _domain;
+    private DomainIndex _domainIndex;
+
+    /**
+     * Value indices of the last bid added, reused to avoid allocations.
+     */
+    private int[] _bidValues;
+
+    /**
+     * Value of each issue having the highest frequency, forming the predicted best bid.
+     */
+    private int[] _bestValues;
+
+    /**
+     * Total frequency of the predicted best bid, used to normalise the predicted utilities.
+     */
+    private float _uMax;
+
+    /**
+     * Incremented each time the frequencies change.
+     */
+    private long _version;
 
     public AccumulatedFrequency(Domain domain) {
-        _domain = domain;
+        this(new DomainIndex(domain));
+    }
 
-        _issueCount = domain.getIssues().size();
+    public AccumulatedFrequency(DomainIndex domainIndex) {
+        _domainIndex = domainIndex;
 
-        _bidValueCount = new HashMap[_issueCount];
-        _accumulatedFrequency = new HashMap[_issueCount];
-        _countedBids = new HashSet<>();
+        _issueCount = domainIndex.getIssueCount();
 
-        List<Issue> issues = domain.getIssues();
+        _bidValueCount = new int[_issueCount][];
+        _accumulatedFrequency = new float[_issueCount][];
+        _countedBids = new BidFilter(domainIndex);
+        _bidValues = new int[_issueCount];
+        _bestValues = new int[_issueCount];
 
         for(int i = 0; i < _issueCount; i++) {
-            _bidValueCount[i] = new HashMap<>();
-            _accumulatedFrequency[i] = new HashMap<>();
+            _bidValueCount[i] = new int[domainIndex.getValueCount(i)];
+            _accumulatedFrequency[i] = new float[domainIndex.getValueCount(i)];
 
-            IssueDiscrete issue = (IssueDiscrete) issues.get(i);
-            List<ValueDiscrete> values = issue.getValues();
-
-            for(Value v : values) {
-                _bidValueCount[i].put(v, 0);
-                _accumulatedFrequency[i].put(v, 1f);
-            }
+            Arrays.fill(_accumulatedFrequency[i], 1f);
         }
+
+        _uMax = _issueCount;
+    }
+
+    public DomainIndex GetDomainIndex() {
+        return _domainIndex;
+    }
+
+    /**
+     * @return A number which changes each time the predicted utilities change.
+     */
+    public long GetVersion() {
+        return _version;
     }
 
     public void AddBid(Bid bid, float time) {
+        AddBid(_domainIndex.toIndices(bid, _bidValues), time);
+    }
+
+    /**
+     * Same as AddBid(Bid, float), for a bid given by its value indices.
+     */
+    public void AddBid(int[] bidValues, float time) {
         _totalBids += 1;
 
-        if(_countedBids.contains(bid))
+        if(!_countedBids.add(bidValues))
             return;
 
-        _countedBids.add(bid);
         _uniqueBids += 1;
+        _version += 1;
 
-        for(int i = 0; i < _issueCount; i++) {
-            Value v = bid.getValue(i + 1);
+        //float learningValue = 1f / ((_uniqueBids * LEARNING_CURVE) + 1f);
 
-            int newCount = _bidValueCount[i].get(v) + 1;
-            _bidValueCount[i].put(v, newCount);
+        float L = 1;
+        float k = -0.02f;
+        float mid = 100;
 
-            float oldFrequency = _accumulatedFrequency[i].get(v);
+        float learningValue = (float) (L / (1f + Math.exp(-k * (_uniqueBids - mid))));
 
-            //float learningValue = 1f / ((_uniqueBids * LEARNING_CURVE) + 1f);
+        boolean bestChanged = false;
 
-            float L = 1;
-            float k = -0.02f;
-            float mid = 100;
+        for(int i = 0; i < _issueCount; i++) {
+            int v = bidValues[i];
+
+            int newCount = _bidValueCount[i][v] + 1;
+            _bidValueCount[i][v] = newCount;
 
-            float learningValue = (float) (L / (1f + Math.exp(-k * (_uniqueBids - mid))));
+            float newFrequency = _accumulatedFrequency[i][v] + (float) Math.pow(learningValue, newCount);
+            _accumulatedFrequency[i][v] = newFrequency;
 
-            float newFrequency = oldFrequency + (float) Math.pow(learningValue, newCount);
-            _accumulatedFrequency[i].put(v, newFrequency);
+            // Frequencies only increase, so only the updated value can become the new maximum.
+            if(v == _bestValues[i] || newFrequency > _accumulatedFrequency[i][_bestValues[i]]) {
+                _bestValues[i] = v;
+                bestChanged = true;
+            }
         }
+
+        if(bestChanged)
+            _uMax = GetTotalFrequency(_bestValues);
     }
 
     public Bid GetPredictedBestBid() {
-        HashMap<Integer, Value> bidP = new HashMap<>();
+        return _domainIndex.toBid(_bestValues);
+    }
 
-        for(int i = 0; i < _issueCount; i++) {
-            HashMap<Value, Float> valueFrequency = _accumulatedFrequency[i];
+    public float GetPredictedUtility(Bid bid) {
+        return GetPredictedUtility(_domainIndex.toIndices(bid, _bidValues));
+    }
 
-            float maxFrequency = 0;
-            Value value = null;
+    /**
+     * Same as GetPredictedUtility(Bid), for a bid given by its value indices.
+     */
+    public float GetPredictedUtility(int[] bidValues) {
+        return GetPredictedUtility(bidValues, 0);
+    }
 
-            for(Map.Entry<Value, Float> e : valueFrequency.entrySet()) {
-                if(e.getValue() > maxFrequency) {
-                    maxFrequency = e.getValue();
-                    value = e.getKey();
-                }
-            }
+    /**
+     * Same as GetPredictedUtility(Bid), for a bid given by its value indices,
+     * starting at the given offset of the array.
+     */
+    public float GetPredictedUtility(int[] bidValues, int offset) {
+        float uBid = GetTotalFrequency(bidValues, offset);
 
-            bidP.put(i + 1, value);
-        }
+        float utility = uBid / _uMax;
 
-        return new Bid(_domain, bidP);
+        return utility;
     }
 
-    public float GetPredictedUtility(Bid bid) {
-        Bid best = GetPredictedBestBid();
+    /**
+     * Same as GetPredictedUtility(Bid), for every bid of a batch at once.
+     * @param utilities Array receiving the predicted utilities, at the index of the bids.
+     */
+    public void GetPredictedUtilities(CandidateBatch bids, float[] utilities) {
+        Arrays.fill(utilities, 0, bids.size(), 0f);
 
-        float uMax = GetTotalFrequency(best);
-        float uBid = GetTotalFrequency(bid);
+        bids.addScores(_accumulatedFrequency, utilities);
+
+        for(int c = 0; c < bids.size(); c++) {
+            utilities[c] /= _uMax;
+        }
+    }
 
-        float utility = uBid / uMax;
+    /**
+     * Adds the contribution of each value of each issue to the predicted utilities, times the scale, to the table.
+     */
+    public void AddPredictedContributions(float[][] table, float scale) {
+        for(int i = 0; i < _issueCount; i++) {
+            for(int v = 0; v < _accumulatedFrequency[i].length; v++) {
+                table[i][v] += _accumulatedFrequency[i][v] / _uMax * scale;
+            }
+        }
+    }
 
-        return utility;
+    private float GetTotalFrequency(int[] bidValues) {
+        return GetTotalFrequency(bidValues, 0);
     }
 
-    private float GetTotalFrequency(Bid bid) {
+    private float GetTotalFrequency(int[] bidValues, int offset) {
         float sum = 0;
 
-        try {
-            for (int i = 0; i < _issueCount; i++) {
-                Value v = bid.getValue(i + 1);
-                sum += _accumulatedFrequency[i].get(v);
-            }
-        } catch (Exception e) {
-            System.out.println(bid);
-            System.out.println(bid.getValues());
-
-            throw e;
+        for (int i = 0; i < _issueCount; i++) {
+            sum += _accumulatedFrequency[i][bidValues[offset + i]];
         }
 
         return sum;
     }
 
     public void printCount() {
-        List<Issue> issues = _domain.getIssues();
+        List<Issue> issues = _domainIndex.getDomain().getIssues();
 
         for(int i = 0; i < _issueCount; i++) {
             String s = issues.get(i).getName() + " [ ";
 
-            HashMap<Value, Integer> values = _bidValueCount[i];
-
-            for(Map.Entry<Value, Integer> e : values.entrySet()) {
-                s = s + e.getKey() + ": " + e.getValue() + ", ";
+            for(int v = 0; v < _bidValueCount[i].length; v++) {
+                s = s + _domainIndex.getValue(i, v) + ": " + _bidValueCount[i][v] + ", ";
             }
 
             s = s + " ]";
@@ -151,15 +212,13 @@ public class AccumulatedFrequency {
     }
 
     public void printFrequency() {
-        List<Issue> issues = _domain.getIssues();
+        List<Issue> issues = _domainIndex.getDomain().getIssues();
 
         for(int i = 0; i < _issueCount; i++) {
             String s = issues.get(i).getName() + " [ ";
 
-            HashMap<Value, Float> values = _accumulatedFrequency[i];
-
-            for(Map.Entry<Value, Float> e : values.entrySet()) {
-                s = s + e.getKey() + ": " + e.getValue() + ", ";
+            for(int v = 0; v < _accumulatedFrequency[i].length; v++) {
+                s = s + _domainIndex.getValue(i, v) + ": " + _accumulatedFrequency[i][v] + ", ";
             }
 
             s = s + " ]";
@@ -0,0 +1,100 @@
+package group9;
+
+import java.util.Arrays;
+
+/**
+ * Mean of the utilities predicted by several AccumulatedFrequency models. Since
+ * the predictions are additive, the contributions of each value of each issue
+ * are summed over the models into a single table, rebuilt when a model
+ * changes, so that predicting the utility of a bid costs O(issues) whatever
+ * the number of models.
+ */
+public class AccumulatedFrequencySum implements OpponentUtilityModel {
+    private final AccumulatedFrequency[] _models;
+
+    /**
+     * Versions of the models the table was built with.
+     */
+    private final long[] _versions;
+
+    /**
+     * Mean over the models of the predicted contribution of each value of each issue.
+     */
+    private final float[][] _contributions;
+
+    private final int _issueCount;
+
+    private long _version;
+
+    public AccumulatedFrequencySum(AccumulatedFrequency[] models) {
+        _models = models.clone();
+        _versions = new long[models.length];
+        Arrays.fill(_versions, -1);
+
+        DomainIndex domainIndex = models[0].GetDomainIndex();
+        _issueCount = domainIndex.getIssueCount();
+        _contributions = new float[_issueCount][];
+
+        for(int i = 0; i < _issueCount; i++)
+            _contributions[i] = new float[domainIndex.getValueCount(i)];
+    }
+
+    public int GetModelCount() {
+        return _models.length;
+    }
+
+    @Override
+    public long GetVersion() {
+        Update();
+        return _version;
+    }
+
+    @Override
+    public float GetPredictedUtility(int[] bidValues) {
+        Update();
+
+        float sum = 0;
+
+        for(int i = 0; i < _issueCount; i++) {
+            sum += _contributions[i][bidValues[i]];
+        }
+
+        return sum;
+    }
+
+    @Override
+    public void GetPredictedUtilities(CandidateBatch bids, float[] utilities) {
+        Update();
+
+        Arrays.fill(utilities, 0, bids.size(), 0f);
+
+        bids.addScores(_contributions, utilities);
+    }
+
+    /**
+     * Rebuilds the table if a model changed since the last build.
+     */
+    private void Update() {
+        boolean changed = false;
+
+        for(int m = 0; m < _models.length; m++) {
+            long version = _models[m].GetVersion();
+
+            if(version != _versions[m]) {
+                _versions[m] = version;
+                changed = true;
+            }
+        }
+
+        if(!changed)
+            return;
+
+        for(int i = 0; i < _issueCount; i++)
+            Arrays.fill(_contributions[i], 0f);
+
+        for(AccumulatedFrequency model : _models)
+            model.AddPredictedContributions(_contributions, 1f / _models.length);
+
+        _version += 1;
+    }
+}
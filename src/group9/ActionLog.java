@@ -0,0 +1,282 @@
+package group9;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+
+/**
+ * Bounded history of the actions of an agent. The last actions are kept in a
+ * ring buffer of columns: the type of the action, the fingerprint of its bid
+ * (see DomainIndex) and its value indices, its time and our utility of its
+ * bid. The PredictedUtilityWindow of the agent orders the bids of the ring by
+ * their predicted utility, reading their values from the ring. The actions
+ * pushed out of the ring are folded into summaries of constant size: counts
+ * per type, and running statistics of their times and of our utility of the
+ * offers. The memory used thus does not depend on the length of the session.
+ *
+ * Optionally, every action is also appended to a file, for analysis after the
+ * session. The file starts with a magic number, a format version and the
+ * structure hash of the domain, followed by one little-endian record per
+ * action: whether it has a bid (byte, 0 or 1), fingerprint of the bid (long, 0
+ * without bid), type (byte), time (double), our utility of the bid (double).
+ */
+public class ActionLog implements AutoCloseable {
+    public static final byte OFFER = 0;
+    public static final byte ACCEPT = 1;
+    /**
+     * Any other action, such as EndNegotiation.
+     */
+    public static final byte OTHER = 2;
+
+    private static final int SPILL_MAGIC = 0x4739414C;
+    private static final int SPILL_VERSION = 2;
+    private static final int RECORD_SIZE = 26;
+    private static final int SPILL_BUFFER_SIZE = RECORD_SIZE * 2048;
+
+    private final DomainIndex domainIndex;
+    private final int issueCount;
+    private final byte[] types;
+    private final boolean[] hasBid;
+    private final long[] bids;
+    /**
+     * Value indices of the bid of each slot, slot after slot.
+     */
+    private final int[] values;
+    private final double[] times;
+    /**
+     * Our utility of the bid of each action, NaN for the actions without a bid.
+     */
+    private final double[] utilities;
+    private int size;
+    /**
+     * Slot receiving the next action.
+     */
+    private int next;
+    private long totalCount;
+
+    /**
+     * Number of actions of each type pushed out of the ring.
+     */
+    private final long[] evictedCounts = new long[3];
+    /**
+     * Times of the actions pushed out of the ring.
+     */
+    private final RunningStats evictedTimes = new RunningStats();
+    /**
+     * Our utility of the offers pushed out of the ring.
+     */
+    private final RunningStats evictedOfferUtilities = new RunningStats();
+
+    private FileChannel spill;
+    private ByteBuffer spillBuffer;
+
+    public ActionLog(DomainIndex domainIndex, int capacity) {
+        this.domainIndex = domainIndex;
+        issueCount = domainIndex.getIssueCount();
+        types = new byte[capacity];
+        hasBid = new boolean[capacity];
+        bids = new long[capacity];
+        values = new int[capacity * issueCount];
+        times = new double[capacity];
+        utilities = new double[capacity];
+    }
+
+    /**
+     * Same as ActionLog(DomainIndex, int), also appending every action to the
+     * given file, which is created if needed and must be empty.
+     */
+    public ActionLog(DomainIndex domainIndex, int capacity, Path spillFile) throws IOException {
+        this(domainIndex, capacity);
+        spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        spillBuffer = ByteBuffer.allocate(SPILL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        spillBuffer.putInt(SPILL_MAGIC).putInt(SPILL_VERSION).putLong(domainIndex.getStructureHash());
+    }
+
+    public static byte typeOf(Action action) {
+        if (action instanceof Offer) {
+            return OFFER;
+        }
+        return action instanceof Accept ? ACCEPT : OTHER;
+    }
+
+    /**
+     * Adds an action, folding the oldest one into the summaries if the ring
+     * is full.
+     * @param bidValues Value indices of the bid of the action, or null.
+     * @param utility Our utility of the bid, or NaN if unknown.
+     */
+    public void add(byte type, int[] bidValues, double time, double utility) {
+        int slot = next;
+        if (size == types.length) {
+            evict(slot);
+        } else {
+            size++;
+        }
+        types[slot] = type;
+        hasBid[slot] = bidValues != null;
+        bids[slot] = bidValues == null ? 0 : domainIndex.fingerprint(bidValues);
+        if (bidValues != null) {
+            System.arraycopy(bidValues, 0, values, slot * issueCount, issueCount);
+        }
+        times[slot] = time;
+        utilities[slot] = bidValues == null ? Double.NaN : utility;
+        next = next + 1 == types.length ? 0 : next + 1;
+        totalCount++;
+
+        if (spill != null) {
+            spill(slot);
+        }
+    }
+
+    /**
+     * @return The number of actions in the ring.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return types.length;
+    }
+
+    /**
+     * @return The number of actions added since the start.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param age 0 for the last action added, up to size() - 1 for the oldest
+     * one kept.
+     * @return The slot of the ring holding the action, which keeps it until
+     * getCapacity() more actions are added. The accessors below take a slot.
+     */
+    public int getSlot(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("Age " + age + " of " + size + " actions");
+        }
+        int slot = next - 1 - age;
+        return slot < 0 ? slot + types.length : slot;
+    }
+
+    public byte getType(int slot) {
+        return types[slot];
+    }
+
+    public boolean hasBid(int slot) {
+        return hasBid[slot];
+    }
+
+    /**
+     * @return The fingerprint of the bid, which is its encoding if the domain
+     * can be encoded. Only meaningful if the action has a bid.
+     */
+    public long getBid(int slot) {
+        return bids[slot];
+    }
+
+    /**
+     * @return The value indices of the bids of all the slots, those of a slot
+     * starting at slot * the number of issues. The array must not be
+     * modified, and is only meaningful for the slots having a bid.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    public double getTime(int slot) {
+        return times[slot];
+    }
+
+    /**
+     * @return Our utility of the bid, NaN if unknown or if the action has no
+     * bid.
+     */
+    public double getUtility(int slot) {
+        return utilities[slot];
+    }
+
+    /**
+     * @return The number of actions of a type which were pushed out of the
+     * ring.
+     */
+    public long getEvictedCount(byte type) {
+        return evictedCounts[type];
+    }
+
+    /**
+     * @return Statistics of the times of the actions which were pushed out of
+     * the ring.
+     */
+    public RunningStats getEvictedTimes() {
+        return evictedTimes;
+    }
+
+    /**
+     * @return Statistics of our utility of the offers which were pushed out of
+     * the ring.
+     */
+    public RunningStats getEvictedOfferUtilities() {
+        return evictedOfferUtilities;
+    }
+
+    /**
+     * Writes the buffered actions to the file, if any, and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (spill == null) {
+            return;
+        }
+        try {
+            flushSpill();
+        } finally {
+            spill.close();
+            spill = null;
+        }
+    }
+
+    private void evict(int slot) {
+        evictedCounts[types[slot]]++;
+        evictedTimes.add(times[slot]);
+        if (types[slot] == OFFER && !Double.isNaN(utilities[slot])) {
+            evictedOfferUtilities.add(utilities[slot]);
+        }
+    }
+
+    /**
+     * Buffers the record of the action of a slot. The file is given up,
+     * keeping the ring, if it cannot be written.
+     */
+    private void spill(int slot) {
+        spillBuffer.put((byte) (hasBid[slot] ? 1 : 0)).putLong(bids[slot]).put(types[slot])
+                .putDouble(times[slot]).putDouble(utilities[slot]);
+        if (spillBuffer.remaining() < RECORD_SIZE) {
+            try {
+                flushSpill();
+            } catch (IOException ex) {
+                try {
+                    spill.close();
+                } catch (IOException closeEx) {
+                    // Already given up
+                }
+                spill = null;
+            }
+        }
+    }
+
+    private void flushSpill() throws IOException {
+        spillBuffer.flip();
+        while (spillBuffer.hasRemaining()) {
+            spill.write(spillBuffer);
+        }
+        spillBuffer.clear();
+    }
+}
@@ -5,8 +5,15 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import negotiator.AgentID;
@@ -15,63 +22,169 @@ import negotiator.actions.Action;
 import negotiator.actions.Offer;
 import negotiator.parties.AbstractNegotiationParty;
 import negotiator.parties.NegotiationInfo;
+import negotiator.utility.AdditiveUtilitySpace;
 
 public class Agent9 extends AbstractNegotiationParty {
 
-    private final HashMap<AgentID, ArrayList<Double>> analysisTimeReceivedOffers = new HashMap<>();
+    /**
+     * Decodes each received message once for all the pokemons, and keeps the
+     * statistics of the offers received during the analysis.
+     */
+    private ObservationStore observationStore;
     private final List<AbstractNegotiationParty> pokemons = new ArrayList<>();
     private AbstractNegotiationParty chosenPokemon;
     private boolean choiceMade = false;
+    /**
+     * Whether the pokemons handle the messages of the analysis phase in
+     * parallel, rather than one after the other. On by default,
+     * -Dgroup9.parallelAnalysis=false turns it off.
+     */
+    private static final boolean PARALLEL_ANALYSIS =
+            Boolean.parseBoolean(System.getProperty("group9.parallelAnalysis", "true"));
+    /**
+     * One single-threaded executor per pokemon, so that each pokemon still
+     * receives its messages in order.
+     */
+    private final List<ExecutorService> pokemonExecutors = new ArrayList<>();
+    /**
+     * Messages handed to the pokemons and not yet known to be handled.
+     */
+    private final List<Future<?>> pendingMessages = new ArrayList<>();
+    /**
+     * Latency histograms of the methods, dumped at the end of the session.
+     */
+    private final Timings timings = new Timings("Agent9");
+    /**
+     * Profiles of the opponents met in previous sessions on this domain, or
+     * null if the store is disabled.
+     */
+    private ProfileStore profileStore;
+    /**
+     * Profile of each opponent, or null for those never met, in order of
+     * first message.
+     */
+    private final Map<AgentID, OpponentProfile> profiles = new LinkedHashMap<>();
+    /**
+     * Statistics of the offers of each opponent at the end of the analysis,
+     * saved in the profiles, or null until then. The chosen pokemon keeps
+     * recording offers in the store after the analysis.
+     */
+    private Map<AgentID, RunningStats> analysisStatistics;
+    /**
+     * Time at which the pokemon is chosen, unless the profiles allow to
+     * choose it earlier.
+     */
+    private static final double ANALYSIS_TIME = 0.1;
+    /**
+     * Number of offers of previous sessions needed in the profile of every
+     * opponent to choose the pokemon without waiting for the analysis.
+     */
+    private static final long MIN_PROFILE_OFFERS = 100;
+    /**
+     * Opponents met so far in the session. Turns go round, so every opponent
+     * has been met once one of them sends a second message.
+     */
+    private final Set<AgentID> opponents = new HashSet<>();
+    private boolean opponentsKnown = false;
 
     @Override
     public void init(NegotiationInfo info) {
         super.init(info);
+        observationStore = new ObservationStore((AdditiveUtilitySpace) info.getUtilitySpace());
+        profileStore = ProfileStore.openDefault();
         pokemons.add(new HardHeaded());
         pokemons.add(new ATriNeS());
         pokemons.add(new Athrines());
         for(AbstractNegotiationParty pokemon : pokemons) {
+            ((ObservationConsumer) pokemon).useObservationStore(observationStore);
             pokemon.init(info);
+            if (PARALLEL_ANALYSIS) {
+                pokemonExecutors.add(Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, pokemon.toString() + " messages");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+            }
         }
     }
 
-    private void addAnalysisOfffer(AgentID agentID, double receivedUtility) {
-        analysisTimeReceivedOffers.putIfAbsent(agentID, new ArrayList<Double>());
-        analysisTimeReceivedOffers.get(agentID).add(receivedUtility);
+    /**
+     * Waits until the pokemons have handled all the messages handed to them.
+     */
+    private void awaitPokemons() {
+        for (Future<?> message : pendingMessages) {
+            try {
+                message.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                Logger.getLogger(Agent9.class.getName()).log(Level.SEVERE, null, ex.getCause());
+            }
+        }
+        pendingMessages.clear();
     }
 
-    private void choosePokemon() {
-        List<Double> means = new ArrayList<>();
-        List<Double> stds = new ArrayList<>();
-        for (List<Double> utilities : analysisTimeReceivedOffers.values()) {
-            // Compute the mean received from this agent
-            double mean = 0;
-            for (Double utility : utilities) {
-                mean += utility;
+    /**
+     * @return The statistics of the offers of each opponent, those of the
+     * analysis merged with those of its profile.
+     */
+    private Map<AgentID, RunningStats> getOfferStatistics() {
+        Map<AgentID, RunningStats> statistics = new LinkedHashMap<>();
+        for (Map.Entry<AgentID, OpponentProfile> e : profiles.entrySet()) {
+            if (e.getValue() != null) {
+                statistics.computeIfAbsent(e.getKey(), agent -> new RunningStats()).merge(e.getValue().getOffers());
             }
-            mean /= utilities.size();
-            means.add(mean);
-            
-            // Compute the standard deviation received from this agent
-            double std = 0;
-            for (Double utility : utilities) {
-                std += (utility - mean) * (utility - mean);
+        }
+        for (Map.Entry<AgentID, RunningStats> e : observationStore.getOfferStatistics().entrySet()) {
+            statistics.computeIfAbsent(e.getKey(), agent -> new RunningStats()).merge(e.getValue());
+        }
+        return statistics;
+    }
+
+    /**
+     * @return Whether all the opponents have been met often enough in previous
+     * sessions to choose the pokemon right away.
+     */
+    private boolean profilesSuffice() {
+        if (!opponentsKnown) {
+            return false;
+        }
+        for (OpponentProfile profile : profiles.values()) {
+            if (profile == null || profile.getOffers().getCount() < MIN_PROFILE_OFFERS) {
+                return false;
             }
-            std /= utilities.size();
-            stds.add(std);
         }
-        
-        double mean1 = means.get(0), mean2, std1 = stds.get(0), std2;
-        // If we play against two identical opponents
-        if(means.size() == 1) {
-            mean2 = means.get(0);
-            std2 = stds.get(0);
-        } else {
-            mean2 = means.get(1);
-            std2 = stds.get(1);
+        return true;
+    }
+
+    /**
+     * Ends the analysis and chooses the pokemon. If this happens before
+     * ANALYSIS_TIME, the chosen pokemon ends its opening as well.
+     */
+    private void endAnalysis(double currentTime) {
+        awaitPokemons();
+        for (ExecutorService executor : pokemonExecutors) {
+            executor.shutdown();
+        }
+        analysisStatistics = observationStore.getOfferStatistics();
+        choosePokemon();
+        choiceMade = true;
+        if (currentTime < ANALYSIS_TIME) {
+            ((ObservationConsumer) chosenPokemon).endOpening(currentTime);
+        }
+    }
+
+    private void choosePokemon() {
+        // Average over the opponents of the mean and standard deviation
+        // received from each, identical opponents counting once
+        double meanMean = 0, meanStd = 0;
+        Map<AgentID, RunningStats> statistics = getOfferStatistics();
+        for (RunningStats utilities : statistics.values()) {
+            meanMean += utilities.getMean() / statistics.size();
+            meanStd += utilities.getVariance() / statistics.size();
         }
         
-        double meanMean = (mean1 + mean2) / 2;
-        double meanStd = (std1 + std2) / 2;
         if(meanMean > 0.55) {
             chosenPokemon = pokemons.get(2);
         } else if(meanStd > 0.015) {
@@ -92,40 +205,107 @@ public class Agent9 extends AbstractNegotiationParty {
     
     @Override
     public void receiveMessage(AgentID sender, Action act) {
+        long start = timings.start();
         double currentTime = getTimeLine().getTime();
 
-        if (currentTime <= 0.1) {
-            if (act instanceof Offer) {
-                Bid receivedBid = ((Offer) act).getBid();
-                addAnalysisOfffer(sender, getUtility(receivedBid));
+        if (sender != null && !opponents.add(sender)) {
+            opponentsKnown = true;
+        }
+        if (sender != null && profileStore != null && !profiles.containsKey(sender)) {
+            profiles.put(sender, OpponentProfile.load(profileStore, sender,
+                    observationStore.getCompiledDomain().getContentHash()));
+        }
+
+        if (choiceMade) {
+            chosenPokemon.receiveMessage(sender, act);
+        } else if (currentTime <= ANALYSIS_TIME) {
+            // Decode the message once, the pokemons only read the observation
+            Observation observation = observationStore.record(sender, act, currentTime);
+            if (PARALLEL_ANALYSIS) {
+                for (int i = 0; i < pokemons.size(); i++) {
+                    ObservationConsumer pokemon = (ObservationConsumer) pokemons.get(i);
+                    pendingMessages.add(pokemonExecutors.get(i).submit(() -> pokemon.observe(observation)));
+                }
+            } else {
+                for(AbstractNegotiationParty pokemon : pokemons) {
+                    ((ObservationConsumer) pokemon).observe(observation);
+                }
             }
-            for(AbstractNegotiationParty pokemon : pokemons) {
-                pokemon.receiveMessage(sender, act);
+            if (profilesSuffice()) {
+                endAnalysis(currentTime);
             }
-        } else if (!choiceMade) {
-            choosePokemon();
-            choiceMade = true;
-            chosenPokemon.receiveMessage(sender, act);
         } else {
+            endAnalysis(currentTime);
             chosenPokemon.receiveMessage(sender, act);
         }
+        timings.stop("receiveMessage", start);
     }
 
     @Override
     public Action chooseAction(List<Class<? extends Action>> arg0) {
+        long start = timings.start();
+        Action action = selectAction(arg0);
+        timings.stop("chooseAction", start);
+        return action;
+    }
+
+    private Action selectAction(List<Class<? extends Action>> arg0) {
+        long start = timings.start();
+        awaitPokemons();
+        timings.stop("awaitPokemons", start);
         double currentTime = getTimeLine().getTime();
 
-        if (currentTime <= 0.1 || !choiceMade) {
-            try {
-                return new Offer(getPartyId(), utilitySpace.getMaxUtilityBid());
-            } catch (Exception e) {
-                return new Offer(getPartyId(), generateRandomBid());
-            }
+        if (!choiceMade) {
+            return new Offer(getPartyId(), observationStore.getCompiledDomain().getMaxUtilityBid());
         } else {
             return chosenPokemon.chooseAction(arg0);
         }
     }
 
+    /**
+     * Forwards the end of the session to the pokemons, once they are done with
+     * their messages, so that they can dump their timings as well, and saves
+     * the profiles of the opponents.
+     */
+    @Override
+    public Map<String, String> negotiationEnded(Bid acceptedBid) {
+        awaitPokemons();
+        for (ExecutorService executor : pokemonExecutors) {
+            executor.shutdown();
+        }
+        for (AbstractNegotiationParty pokemon : pokemons) {
+            pokemon.negotiationEnded(acceptedBid);
+        }
+        saveProfiles();
+        timings.dump();
+        return super.negotiationEnded(acceptedBid);
+    }
+
+    private void saveProfiles() {
+        if (profileStore == null) {
+            return;
+        }
+        int chosen = choiceMade ? pokemons.indexOf(chosenPokemon) : -1;
+        long domainHash = observationStore.getCompiledDomain().getContentHash();
+        // Every offer is part of the analysis if the session ended during it
+        Map<AgentID, RunningStats> statistics =
+                analysisStatistics != null ? analysisStatistics : observationStore.getOfferStatistics();
+        try {
+            for (Map.Entry<AgentID, RunningStats> e : statistics.entrySet()) {
+                OpponentProfile.addSession(profileStore, e.getKey(), domainHash, e.getValue(), chosen);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(Agent9.class.getName()).log(Level.WARNING, null, ex);
+        } finally {
+            try {
+                profileStore.close();
+            } catch (IOException ex) {
+                Logger.getLogger(Agent9.class.getName()).log(Level.WARNING, null, ex);
+            }
+            profileStore = null;
+        }
+    }
+
     public String getName() {
         return "The Pokemon Master";
     }
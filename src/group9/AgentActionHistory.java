@@ -8,80 +8,149 @@ import negotiator.actions.Accept;
 import negotiator.actions.Action;
 import negotiator.actions.Offer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Created by Michael on 17/11/2017.
  */
 public class AgentActionHistory {
     public AgentID AgentID;
-    public List<Action> Actions;
+
+    /**
+     * Last actions of the agent, as many as the threshold window.
+     */
+    public ActionLog Actions;
 
     public AccumulatedFrequency accumulatedFrequency;
 
-    static float THRESHOLD_MOVING_AVERAGE = 20;
+    /**
+     * Default number of last actions used to predict the threshold.
+     */
+    static int THRESHOLD_MOVING_AVERAGE = 20;
+
+    /**
+     * Number of lowest bids of the window averaged to predict the threshold.
+     */
+    static int THRESHOLD_LOWEST_BIDS = 5;
+
+    /**
+     * Directory where the whole history of each agent is written, or an empty string to only keep the last actions.
+     */
+    static final String SPILL_DIRECTORY = System.getProperty("group9.historySpill", "");
+
+    private PredictedUtilityWindow _window;
+
+    private int[] _bidValues;
 
     public AgentActionHistory(AgentID agentID, Domain domain) {
-        AgentID = agentID;
-        Actions = new ArrayList<>();
-        accumulatedFrequency = new AccumulatedFrequency(domain);
+        this(agentID, new DomainIndex(domain));
     }
 
-    public void AddAction(Action act, float time) {
-        Actions.add(act);
-
-        if(act instanceof Offer) {
-            Offer offer = (Offer) act;
+    public AgentActionHistory(AgentID agentID, DomainIndex domainIndex) {
+        this(agentID, domainIndex, THRESHOLD_MOVING_AVERAGE);
+    }
 
-            accumulatedFrequency.AddBid(offer.getBid(), time);
-        }
+    public AgentActionHistory(AgentID agentID, DomainIndex domainIndex, int windowSize) {
+        AgentID = agentID;
+        Actions = OpenActionLog(agentID, domainIndex, windowSize);
+        accumulatedFrequency = new AccumulatedFrequency(domainIndex);
+        _window = new PredictedUtilityWindow(accumulatedFrequency, Actions);
+        _bidValues = new int[domainIndex.getIssueCount()];
     }
 
-    public float GetPredictedThreshold() {
-        List<Action> lastNActions = Actions.subList((int) Math.max(0, Actions.size() - THRESHOLD_MOVING_AVERAGE), Actions.size());
+    /**
+     * @return A log writing to a new file of SPILL_DIRECTORY if it is set and the file can be created, otherwise an
+     * in-memory log. The file is named after the agent, with a unique suffix so that concurrent sessions never share
+     * a file.
+     */
+    private static ActionLog OpenActionLog(AgentID agentID, DomainIndex domainIndex, int capacity) {
+        if(!SPILL_DIRECTORY.isEmpty()) {
+            String name = String.valueOf(agentID).replaceAll("[^A-Za-z0-9@._-]", "_");
+            Path directory = Paths.get(SPILL_DIRECTORY);
+
+            try {
+                Files.createDirectories(directory);
+                Path file = Files.createTempFile(directory, name + "-", ".actions");
+                return new ActionLog(domainIndex, capacity, file);
+            } catch (IOException e) {
+                Logger.getLogger(AgentActionHistory.class.getName()).log(Level.WARNING, null, e);
+            }
+        }
 
-        float average = 0;
+        return new ActionLog(domainIndex, capacity);
+    }
 
-        lastNActions.sort((o1, o2) -> {
-            Bid bid1 = null;
+    public void AddAction(Action act, float time) {
+        Bid bid = null;
 
-            if(o1 instanceof Offer) {
-                bid1 = ((Offer) o1).getBid();
-            } else if (o1 instanceof Accept) {
-                bid1 = ((Accept) o1).getBid();
-            }
+        if(act instanceof Offer) {
+            bid = ((Offer) act).getBid();
+        } else if (act instanceof Accept) {
+            bid = ((Accept) act).getBid();
+        }
 
-            Bid bid2 = null;
+        if(bid == null) {
+            Actions.add(ActionLog.typeOf(act), null, time, Double.NaN);
+            _window.ActionAdded();
+            return;
+        }
 
-            if(o2 instanceof Offer) {
-                bid2 = ((Offer) o2).getBid();
-            } else if (o2 instanceof Accept) {
-                bid2 = ((Accept) o2).getBid();
-            }
+        DomainIndex domainIndex = accumulatedFrequency.GetDomainIndex();
+        domainIndex.toIndices(bid, _bidValues);
 
+        double utility = domainIndex.hasUtilities() ? domainIndex.getUtility(_bidValues) : Double.NaN;
+        Actions.add(ActionLog.typeOf(act), _bidValues, time, utility);
 
-            return (int) (accumulatedFrequency.GetPredictedUtility(bid1) - accumulatedFrequency.GetPredictedUtility(bid2));
-        });
+        AddBid(act, _bidValues, time);
+    }
 
-        List<Action> lowestBids = lastNActions.subList(Math.max(0, lastNActions.size() - 5), lastNActions.size());
+    /**
+     * Same as AddAction, for an action already decoded in an ObservationStore
+     * sharing the DomainIndex of this history.
+     */
+    public void AddObservation(Observation observation) {
+        Actions.add(ActionLog.typeOf(observation.getAction()), observation.getValues(), observation.getTime(),
+                observation.getUtility());
+
+        if(observation.getValues() == null) {
+            _window.ActionAdded();
+            return;
+        }
 
+        AddBid(observation.getAction(), observation.getValues(), (float) observation.getTime());
+    }
 
-        for(Action act : lowestBids) {
-            Bid actBid = null;
+    /**
+     * Updates the model with a bid just added to the log.
+     */
+    private void AddBid(Action act, int[] bidValues, float time) {
+        if(act instanceof Offer)
+            accumulatedFrequency.AddBid(bidValues, time);
 
-            if(act instanceof Offer) {
-                actBid = ((Offer) act).getBid();
-            } else if (act instanceof Accept) {
-                actBid = ((Accept) act).getBid();
-            }
+        _window.ActionAdded();
+    }
 
-            if(actBid == null)
-                continue;
+    /**
+     * Predicts the threshold of the agent as the average predicted utility of
+     * the lowest bids among its last actions.
+     */
+    public float GetPredictedThreshold() {
+        return _window.GetLowestAverage(THRESHOLD_LOWEST_BIDS);
+    }
 
-            average += accumulatedFrequency.GetPredictedUtility(actBid);
+    /**
+     * Writes the rest of the history to SPILL_DIRECTORY, if set.
+     */
+    public void Close() {
+        try {
+            Actions.close();
+        } catch (IOException e) {
+            Logger.getLogger(AgentActionHistory.class.getName()).log(Level.WARNING, null, e);
         }
-
-        return average / lowestBids.size();
     }
 }
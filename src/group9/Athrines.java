@@ -1,25 +1,19 @@
 package group9;
 
 import java.util.Random;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import negotiator.AgentID;
 import negotiator.Bid;
 import negotiator.actions.Accept;
 import negotiator.actions.Action;
 import negotiator.actions.Offer;
-import negotiator.issue.Issue;
-import negotiator.issue.IssueDiscrete;
-import negotiator.issue.ValueDiscrete;
 import negotiator.parties.AbstractNegotiationParty;
 import negotiator.parties.NegotiationInfo;
 import negotiator.utility.AdditiveUtilitySpace;
-import negotiator.utility.EvaluatorDiscrete;
 
 
-public class Athrines extends AbstractNegotiationParty {
+public class Athrines extends AbstractNegotiationParty implements ObservationConsumer {
 
 	/**
 	 * 
@@ -53,8 +47,28 @@ public class Athrines extends AbstractNegotiationParty {
 	private static final double FREQ_DIVIDER = 50;
 	private static final double FREQ_BIAS = 0.25;
 	
-	private ArrayList<IssueDiscrete> issues;
+	// whether the opponent model is updated in a background thread
+	public static final boolean BACKGROUND_MODEL = Boolean.getBoolean("group9.backgroundModel");
+	
+	private ObservationStore observationStore;
+	private DomainIndex domainIndex;
+	// our utility of the bids evaluated so far in the session
+	private UtilityCache utilityCache;
+	private CompiledDomain compiledDomain;
 	private OpponentModel opponentModel;
+	// updates the opponent model in background, or null
+	private OpponentModelWorker modelWorker;
+	
+	// latency histograms of the methods, dumped at the end of the session
+	private final Timings timings = new Timings("Athrines");
+	
+	// draws random bids above a threshold, into sampledValues
+	private BidSampler bidSampler;
+	private int[] sampledValues;
+	private int[] bestValues;
+	
+	// time until which only the max utility bid is offered
+	private double openingEnd = 0.1;
 	
 	
 	@Override
@@ -67,35 +81,67 @@ public class Athrines extends AbstractNegotiationParty {
 	
 		utilitySpace = (AdditiveUtilitySpace)info.getUtilitySpace();
 		
-		try {
-			maxUtility = getUtility(utilitySpace.getMaxUtilityBid());
-		} catch (Exception e) {
-			maxUtility = 1.01;
+		// index the issues and values of this domain
+		if(observationStore == null)
+		{
+			observationStore = new ObservationStore(utilitySpace);
 		}
+		domainIndex = observationStore.getDomainIndex();
+		utilityCache = new UtilityCache(domainIndex);
+		compiledDomain = observationStore.getCompiledDomain();
+		
+		maxUtility = compiledDomain.getMaxUtility();
 		acceptanceThreshold = maxUtility;
 		
-		// initialize array of issues for this domain
-		ArrayList<Issue> rawIssues = (ArrayList<Issue>) utilitySpace.getDomain().getIssues();
-		issues = new ArrayList<IssueDiscrete>();
-		for(Issue rawIssue : rawIssues)
+		// initialize opponent preferences
+		opponentModel = new OpponentModel(domainIndex);
+		if(BACKGROUND_MODEL)
 		{
-			issues.add((IssueDiscrete)rawIssue);
+			modelWorker = new OpponentModelWorker(opponentModel, "Athrines model");
 		}
 		
-		// initialize opponent preferences
-		opponentModel = new OpponentModel(issues);
+		bidSampler = new BidSampler(domainIndex, rand);
+		sampledValues = new int[domainIndex.getIssueCount()];
+		bestValues = new int[domainIndex.getIssueCount()];
 	}
 
 
 	@Override
 	public void receiveMessage(AgentID sender, Action act) {
-		actionOfPartner = act;
+		observe(observationStore.record(sender, act, getTimeLine().getTime()));
+	}
+	
+	
+	@Override
+	public void useObservationStore(ObservationStore store) {
+		observationStore = store;
+	}
+	
+	
+	@Override
+	public void endOpening(double time) {
+		openingEnd = time;
+	}
+	
+	
+	@Override
+	public void observe(Observation observation) {
+		actionOfPartner = observation.getAction();
 		if (actionOfPartner instanceof Offer) {
-			lastReceivedBid = ((Offer) actionOfPartner).getBid();
+			lastReceivedBid = observation.getBid();
 			
 			// update the opponent model
-			opponentModel.updateFrequencies(lastReceivedBid, sender, getFrequencyWeight());
-			opponentModel.updatePreferences();
+			long start = timings.start();
+			if(modelWorker != null)
+			{
+				modelWorker.submit(observation.getValues(), observation.getSender(), getFrequencyWeight());
+			}
+			else
+			{
+				opponentModel.updateFrequencies(observation.getValues(), observation.getSender(), getFrequencyWeight());
+				opponentModel.updatePreferences();
+			}
+			timings.stop("updateModel", start);
 		}
 		
 		double t = getTimeLine().getTime();
@@ -118,24 +164,28 @@ public class Athrines extends AbstractNegotiationParty {
 	
 	@Override
 	public Action chooseAction(List<Class<? extends Action>> possibleActions) {
+		long start = timings.start();
+		Action action = selectAction(possibleActions);
+		timings.stop("chooseAction", start);
+		return action;
+	}
+	
+	
+	private Action selectAction(List<Class<? extends Action>> possibleActions) {
 
 		double t = getTimeLine().getTime();
-		if(t > 0.1)
+		if(t > openingEnd)
 		{
 			rounds++;
 			
 			// we are first to act
 			if (lastReceivedBid == null || !possibleActions.contains(Accept.class)) {
 				// propose maximum utility for us !!!
-				try {
-					return new Offer(getPartyId(), utilitySpace.getMaxUtilityBid());
-				} catch (Exception e){
-					return new Offer(getPartyId(), generateRandomBid());
-				}
+				return new Offer(getPartyId(), compiledDomain.getMaxUtilityBid());
 			} 
 			else {
 				// verify if the offer is good enough
-				if(getUtility(lastReceivedBid) > acceptanceThreshold)
+				if(utilityCache.getUtility(lastReceivedBid) > acceptanceThreshold)
 				{
 					return new Accept(getPartyId(), lastReceivedBid);
 				}
@@ -147,22 +197,24 @@ public class Athrines extends AbstractNegotiationParty {
 		        if(randNr < EPSILON)
 		        {
 		        	// propose random bid
-		        	return new Offer(getPartyId(), offerRandom(10));
+		        	long start = timings.start();
+		        	Bid bid = offerRandom(10);
+		        	timings.stop("offerRandom", start);
+		        	return new Offer(getPartyId(), bid);
 		        }
 		        else
 		        {
 					// propose the bid that maximizes the objective
-					return new Offer(getPartyId(), bestOffer());
+					long start = timings.start();
+					Bid bid = bestOffer();
+					timings.stop("bestOffer", start);
+					return new Offer(getPartyId(), bid);
 		        }
 			}
 		}
 		else
 		{
-			try {
-				return new Offer(getPartyId(), utilitySpace.getMaxUtilityBid());
-			} catch (Exception e) {
-				return new Offer(getPartyId(), generateRandomBid());
-			}
+			return new Offer(getPartyId(), compiledDomain.getMaxUtilityBid());
 		}
 		
 	}
@@ -170,44 +222,26 @@ public class Athrines extends AbstractNegotiationParty {
 	
 	private Bid offerRandom(int bidsNr)
 	{
-		HashSet<Bid> generatedBids = new HashSet<Bid>();
-		
-		// generate random bids
-		long startTime = System.nanoTime(); 
-		while(generatedBids.size() < bidsNr && (System.nanoTime() - startTime < 400000000L))
-		{
-			Bid randomBid = generateRandomBid();
-			if(getUtility(randomBid) >= Math.min(acceptanceThreshold, EPS_MIN_ACCEPTANCE))
-			{
-				generatedBids.add(randomBid);
-			}
-		}
+		double threshold = Math.min(acceptanceThreshold, EPS_MIN_ACCEPTANCE);
 		
-		// select the one which maximizes our opponents' score
-		Bid bestBid = null;
+		// draw random bids above the threshold, and select the one which maximizes our opponents' score
+		boolean found = false;
 		double maxScore = 0;
-		for(Bid b : generatedBids)
+		for(int n = 0; n < bidsNr && bidSampler.sample(threshold, sampledValues); n++)
 		{
-			double bidScore = 0;
-			for(IssueDiscrete i : issues)
-			{
-				ValueDiscrete v = (ValueDiscrete)b.getValue(i.getNumber());
-				for(Entry<AgentID, Double> e : opponentModel.getValuePrefs().get(i).get(v).entrySet())
-				{
-					bidScore += opponentModel.getIssuePrefs().get(i).get(e.getKey()) * e.getValue();
-				}
-			}
+			double bidScore = opponentModel.getScore(sampledValues);
 			
 			if(bidScore > maxScore)
 			{
-				bestBid = b;
+				System.arraycopy(sampledValues, 0, bestValues, 0, bestValues.length);
 				maxScore = bidScore;
+				found = true;
 			}
 		}
 		
-		if(bestBid != null)
+		if(found)
 		{
-			return bestBid;
+			return domainIndex.toBid(bestValues);
 		}
 		else
 		{
@@ -219,27 +253,22 @@ public class Athrines extends AbstractNegotiationParty {
 	private Bid bestOffer() {
 		
 		Bid bestBid = generateRandomBid();
-		EvaluatorDiscrete issueEval;
 		double uncertainty = getUncertainty();
+		double[][] opScores = opponentModel.getScores();
 				
-		for(IssueDiscrete i : issues)
+		for(int i = 0; i < domainIndex.getIssueCount(); i++)
 		{
 			double maxValueScore = 0;
-			issueEval = (EvaluatorDiscrete)utilitySpace.getEvaluator(i.getNumber());
 			
-			for(ValueDiscrete v : i.getValues())
+			for(int v = 0; v < domainIndex.getValueCount(i); v++)
 			{
-				double myScore = issueEval.getWeight() * issueEval.getDoubleValue(v);
-				double opScore = 0;
-				for(Entry<AgentID, Double> e : opponentModel.getValuePrefs().get(i).get(v).entrySet())
-				{
-					opScore += opponentModel.getIssuePrefs().get(i).get(e.getKey()) * e.getValue();
-				}
+				double myScore = domainIndex.getUtility(i, v);
+				double opScore = opScores[i][v];
 				
 				double finalScore = selfishWeight * myScore + uncertainty * opScore;
 				if(finalScore > maxValueScore)
 				{
-					bestBid = bestBid.putValue(i.getNumber(), v);
+					bestBid = bestBid.putValue(domainIndex.getIssueNumber(i), domainIndex.getValue(i, v));
 					maxValueScore = finalScore;
 				}
 			}
@@ -247,6 +276,17 @@ public class Athrines extends AbstractNegotiationParty {
 		return bestBid;
 	}
 	
+	@Override
+	public Map<String, String> negotiationEnded(Bid acceptedBid) {
+		if(modelWorker != null)
+		{
+			modelWorker.close();
+			modelWorker = null;
+		}
+		timings.dump();
+		return super.negotiationEnded(acceptedBid);
+	}
+	
 	private double getFrequencyWeight() {
 		return Math.max(FREQ_INTERCEPT - Math.log((double)rounds / FREQ_DIVIDER + FREQ_BIAS), FREQ_MIN);
 	}
@@ -0,0 +1,74 @@
+package group9;
+
+/**
+ * Set of the bids seen so far, of bounded size whatever the number of bids
+ * added. If the bids of the domain can be encoded in at most MAX_BITS values,
+ * the set is an exact bitmap indexed by the encoding. Otherwise it is a Bloom
+ * filter of MAX_BITS bits over the fingerprints of the bids, which may take a
+ * new bid for one already seen, with a probability growing with the number of
+ * distinct bids: about 0.2% after 50,000 of them.
+ */
+public class BidFilter {
+    public static final int MAX_BITS = 1 << 20;
+    private static final int HASH_BITS = 20;
+    private static final int HASH_COUNT = 3;
+
+    private final DomainIndex domainIndex;
+    private final boolean exact;
+    private final long[] bits;
+
+    public BidFilter(DomainIndex domainIndex) {
+        this.domainIndex = domainIndex;
+        exact = domainIndex.canEncode() && domainIndex.getOutcomeCount() <= MAX_BITS;
+        long bitCount = exact ? domainIndex.getOutcomeCount() : MAX_BITS;
+        bits = new long[(int) ((bitCount + 63) >>> 6)];
+    }
+
+    /**
+     * Adds a bid given by its value indices.
+     * @return Whether the bid was not in the set yet. A false answer may be
+     * wrong if the set is not exact.
+     */
+    public boolean add(int[] bidValues) {
+        long fingerprint = domainIndex.fingerprint(bidValues);
+        if (exact) {
+            return set(fingerprint);
+        }
+        long hash = mix(fingerprint);
+        boolean added = false;
+        for (int h = 0; h < HASH_COUNT; h++) {
+            added |= set((hash >>> (h * HASH_BITS)) & (MAX_BITS - 1));
+        }
+        return added;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return The size of the bitmap, in bytes, which never changes.
+     */
+    public int getSizeInBytes() {
+        return bits.length * 8;
+    }
+
+    private boolean set(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        return true;
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreading the fingerprints over all the bits.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
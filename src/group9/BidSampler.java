@@ -0,0 +1,109 @@
+package group9;
+
+import java.util.Random;
+
+/**
+ * Draws random bids having a utility above a threshold directly, using the
+ * additive structure of our utility. The issues are drawn one after the
+ * other: a value is only drawn among those for which the best values of the
+ * remaining issues can still reach the threshold. Every draw is thus a valid
+ * bid and costs O(issues * log(values)), without allocating. The draws are
+ * not uniform among the bids above the threshold: the values leaving more
+ * room for the remaining issues are not favoured.
+ */
+public class BidSampler {
+    private final DomainIndex domainIndex;
+    private final Random random;
+    /**
+     * Value indices of each issue, by decreasing utility.
+     */
+    private final int[][] sortedValues;
+    /**
+     * Utility of the values in sortedValues.
+     */
+    private final double[][] sortedUtilities;
+    /**
+     * Highest utility reachable with the issues from each index on.
+     */
+    private final double[] maxRemaining;
+
+    public BidSampler(DomainIndex domainIndex, Random random) {
+        this.domainIndex = domainIndex;
+        this.random = random;
+        int issueCount = domainIndex.getIssueCount();
+        sortedValues = new int[issueCount][];
+        sortedUtilities = new double[issueCount][];
+        maxRemaining = new double[issueCount + 1];
+        for (int i = 0; i < issueCount; i++) {
+            int valueCount = domainIndex.getValueCount(i);
+            sortedValues[i] = new int[valueCount];
+            sortedUtilities[i] = new double[valueCount];
+            // Insertion sort, issues have few values
+            for (int v = 0; v < valueCount; v++) {
+                double utility = domainIndex.getUtility(i, v);
+                int j = v;
+                while (j > 0 && sortedUtilities[i][j - 1] < utility) {
+                    sortedValues[i][j] = sortedValues[i][j - 1];
+                    sortedUtilities[i][j] = sortedUtilities[i][j - 1];
+                    j--;
+                }
+                sortedValues[i][j] = v;
+                sortedUtilities[i][j] = utility;
+            }
+        }
+        for (int i = issueCount - 1; i >= 0; i--) {
+            double best = sortedUtilities[i].length == 0 ? 0 : sortedUtilities[i][0];
+            maxRemaining[i] = best + maxRemaining[i + 1];
+        }
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    /**
+     * @return The highest utility of a bid of the domain.
+     */
+    public double getMaxUtility() {
+        return maxRemaining[0];
+    }
+
+    /**
+     * Draws a random bid having a utility at least the threshold, up to
+     * rounding errors.
+     * @param values Array receiving the value indices of the bid.
+     * @return false if no bid reaches the threshold, in which case the array
+     * is left unchanged.
+     */
+    public boolean sample(double threshold, int[] values) {
+        if (maxRemaining[0] < threshold) {
+            return false;
+        }
+        double utility = 0;
+        for (int i = 0; i < sortedValues.length; i++) {
+            double needed = threshold - utility - maxRemaining[i + 1];
+            int feasible = Math.max(1, countAtLeast(sortedUtilities[i], needed));
+            int position = random.nextInt(feasible);
+            values[i] = sortedValues[i][position];
+            utility += sortedUtilities[i][position];
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of leading utilities of a sorted array which are at
+     * least the given one.
+     */
+    private static int countAtLeast(double[] utilities, double utility) {
+        int low = 0, high = utilities.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (utilities[mid] >= utility) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,88 +1,261 @@
 package group9;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 
+/**
+ * Writes the mean and variance of series of values as CSV rows. The
+ * statistics are kept as running sums, so the memory used does not grow with
+ * the number of values. Rows are handed to a background thread which writes
+ * them through a large buffer, so that writeData does not wait for the disk.
+ * An error while writing is reported by the next call to flush or
+ * stopWriting. Rows cannot be written after stopWriting.
+ */
 public class CSVWriter {
 
 	//Delimiter used in CSV file
 	private static final String COMMA_DELIMITER = ",";
 	private static final String NEW_LINE_SEPARATOR = "\n";
+	
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final int BUFFER_SIZE = 1 << 18;
 
-	private FileWriter fw = null;
-	private HashMap<String, ArrayList<Double>> ofs = new HashMap<String, ArrayList<Double>>();
+	private LinkedHashMap<String, RunningStats> ofs = new LinkedHashMap<String, RunningStats>();
+	
+	private BlockingQueue<Object> rows;
+	private Thread writerThread;
+	private volatile IOException writeError = null;
+	private volatile boolean stopped = false;
+	
+	// marks the end of the rows to write
+	private static final Object END = new Object();
 	
 	public void addOf(String a, double d)
 	{
 		if(ofs.get(a) == null)
 		{
-			ofs.put(a, new ArrayList<Double>());
+			ofs.put(a, new RunningStats());
 		}
 		ofs.get(a).add(d);
 	}
 	
-	public void startWriting(String fileName)
+	public void startWriting(String fileName) throws IOException
 	{
-		try {
-			fw = new FileWriter(fileName, true);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}		
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		rows = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+		writerThread = new Thread(() -> writeRows(channel), "CSVWriter " + fileName);
+		writerThread.setDaemon(true);
+		writerThread.start();
 	}
 	
+	/**
+	 * Queues a row with the current mean and variance of each series. Only
+	 * waits if QUEUE_CAPACITY rows are already waiting to be written.
+	 * @throws IllegalStateException If the writer is not started or stopped.
+	 */
 	public void writeData()
 	{
+		if(rows == null || stopped)
+		{
+			throw new IllegalStateException("CSVWriter is not writing");
+		}
 		double dataSize = 0;
+		StringBuilder row = new StringBuilder();
 		
-		// compute the means
-		HashMap<String, Double> means = new HashMap<String, Double>();
-		for(Entry<String, ArrayList<Double>> e : ofs.entrySet())
+		for(Entry<String, RunningStats> e : ofs.entrySet())
 		{
-			double sum = 0;
-			for(Double v : e.getValue())
-			{
-				sum += v;
-			}
-			means.put(e.getKey(), sum / e.getValue().size());
-			dataSize = e.getValue().size();
+			row.append(e.getKey());
+			row.append(COMMA_DELIMITER);
+			row.append(String.valueOf(e.getValue().getMean()));
+			row.append(COMMA_DELIMITER);
+			row.append(String.valueOf(e.getValue().getVariance()));
+			row.append(COMMA_DELIMITER);
+			dataSize = e.getValue().getCount();
 		}
+		row.append(String.valueOf(dataSize));
+		row.append(NEW_LINE_SEPARATOR);
 		
-		// compute the standard deviations
-		HashMap<String, Double> stds = new HashMap<String, Double>();
-		for(Entry<String, ArrayList<Double>> e : ofs.entrySet())
+		enqueue(row.toString());
+	}
+	
+	/**
+	 * Waits until all the rows queued so far are written to the file and
+	 * forced to the storage device. Does nothing once stopped, the rows being
+	 * already written then.
+	 * @throws IOException If a row could not be written.
+	 */
+	public void flush() throws IOException
+	{
+		if(rows == null || stopped)
 		{
-			double mean = means.get(e.getKey());
-			double sum = 0;
-			for(Double v : e.getValue())
-			{
-				sum += (v - mean)*(v - mean);
+			checkError();
+			return;
+		}
+		CountDownLatch written = new CountDownLatch(1);
+		enqueue(written);
+		try {
+			written.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while flushing");
+		}
+		checkError();
+	}
+	
+	/**
+	 * Writes all the queued rows, forces them to the storage device, then
+	 * closes the file. Does nothing if already stopped.
+	 * @throws IOException If a row could not be written or the file could not
+	 * be closed.
+	 */
+	public void stopWriting(String fileName) throws IOException
+	{
+		if(rows == null || stopped)
+		{
+			return;
+		}
+		stopped = true;
+		enqueue(END);
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while closing " + fileName);
+		}
+		checkError();
+	}
+	
+	/**
+	 * Queues a row, even if the thread is interrupted while waiting for room,
+	 * in which case the interrupt is restored once the row is queued.
+	 */
+	private void enqueue(Object row)
+	{
+		boolean interrupted = false;
+		while(true)
+		{
+			try {
+				rows.put(row);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
 			}
-			stds.put(e.getKey(), sum / e.getValue().size());
 		}
-		
+		if(interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private void checkError() throws IOException
+	{
+		IOException error = writeError;
+		if(error != null)
+		{
+			throw error;
+		}
+	}
+	
+	/**
+	 * Loop of the writer thread: drains the queue into the buffer, and writes
+	 * the buffer when it is full, when asked to flush and at the end. The
+	 * file is forced to the storage device on flush and at the end.
+	 */
+	private void writeRows(FileChannel channel)
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
 		try {
-			for(String a : ofs.keySet())
+			while(true)
 			{
-				fw.append(a);
-				fw.append(COMMA_DELIMITER);
-				fw.append(String.valueOf(means.get(a)));
-				fw.append(COMMA_DELIMITER);
-				fw.append(String.valueOf(stds.get(a)));
-				fw.append(COMMA_DELIMITER);
+				Object row = rows.take();
+				if(row == END)
+				{
+					break;
+				}
+				if(row instanceof CountDownLatch)
+				{
+					drain(buffer, channel);
+					channel.force(false);
+					((CountDownLatch) row).countDown();
+					continue;
+				}
+				byte[] bytes = ((String) row).getBytes(StandardCharsets.UTF_8);
+				if(bytes.length > buffer.remaining())
+				{
+					drain(buffer, channel);
+				}
+				if(bytes.length > buffer.remaining())
+				{
+					ByteBuffer large = ByteBuffer.wrap(bytes);
+					while(large.hasRemaining())
+					{
+						channel.write(large);
+					}
+				}
+				else
+				{
+					buffer.put(bytes);
+				}
+			}
+			drain(buffer, channel);
+			channel.force(false);
+		} catch (IOException e) {
+			writeError = e;
+			// keep consuming the queue so that nobody waits forever
+			releaseWaiters();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				if(writeError == null)
+				{
+					writeError = e;
+				}
 			}
-			fw.append(String.valueOf(dataSize));
-			fw.append(NEW_LINE_SEPARATOR);
-		}catch(IOException ioe) {};
+		}
+	}
+	
+	private void drain(ByteBuffer buffer, FileChannel channel) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
 	}
 	
-	public void stopWriting(String fileName)
+	private void releaseWaiters()
 	{
 		try {
-			fw.close();
-		} catch (IOException e) {}
+			while(true)
+			{
+				Object row = rows.take();
+				if(row == END)
+				{
+					return;
+				}
+				if(row instanceof CountDownLatch)
+				{
+					((CountDownLatch) row).countDown();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 	
 }
@@ -0,0 +1,156 @@
+package group9;
+
+import java.util.Arrays;
+import negotiator.Bid;
+
+/**
+ * Candidate bids stored column-wise: the value indices of all the candidates
+ * for one issue are contiguous. Additive scores are computed issue by issue,
+ * by looking up the table of the issue for each candidate, which keeps both
+ * the table and the column in cache and lets the JIT unroll the loop. The
+ * summation order is the same as scoring each bid alone, issue after issue,
+ * so both give identical results.
+ */
+public class CandidateBatch {
+    private final DomainIndex domainIndex;
+    /**
+     * Value index of each candidate, per issue.
+     */
+    private int[][] columns;
+    private int capacity;
+    private int size;
+    /**
+     * Value indices of the last bid added, reused to avoid allocations.
+     */
+    private final int[] bidValues;
+
+    public CandidateBatch(DomainIndex domainIndex) {
+        this(domainIndex, 64);
+    }
+
+    public CandidateBatch(DomainIndex domainIndex, int capacity) {
+        this.domainIndex = domainIndex;
+        int issueCount = domainIndex.getIssueCount();
+        this.capacity = Math.max(1, capacity);
+        columns = new int[issueCount][this.capacity];
+        bidValues = new int[issueCount];
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies a candidate over another one, to compact the batch.
+     */
+    public void move(int from, int to) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i][to] = columns[i][from];
+        }
+    }
+
+    /**
+     * Keeps only the first candidates.
+     */
+    public void truncate(int size) {
+        this.size = Math.min(this.size, size);
+    }
+
+    /**
+     * @return The index of the added candidate.
+     */
+    public int add(int[] values) {
+        ensureCapacity(size + 1);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i][size] = values[i];
+        }
+        return size++;
+    }
+
+    public int add(Bid bid) {
+        return add(domainIndex.toIndices(bid, bidValues));
+    }
+
+    /**
+     * Same as add(int[]), for an encoded bid.
+     */
+    public int add(long key) {
+        return add(domainIndex.decode(key, bidValues));
+    }
+
+    /**
+     * @return The value indices of a candidate for each issue, in the given
+     * array.
+     */
+    public int[] getValues(int candidate, int[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i][candidate];
+        }
+        return values;
+    }
+
+    public Bid toBid(int candidate) {
+        return domainIndex.toBid(getValues(candidate, new int[columns.length]));
+    }
+
+    /**
+     * @return The value indices of all the candidates for one issue. Only the
+     * first size() entries are meaningful.
+     */
+    public int[] getColumn(int issue) {
+        return columns[issue];
+    }
+
+    /**
+     * Adds the additive score of each candidate to the scores array.
+     * @param table Score of each value of each issue.
+     * @param scores Array receiving the scores, at the index of the candidates.
+     */
+    public void addScores(double[][] table, double[] scores) {
+        for (int i = 0; i < columns.length; i++) {
+            int[] column = columns[i];
+            double[] issueTable = table[i];
+            for (int c = 0; c < size; c++) {
+                scores[c] += issueTable[column[c]];
+            }
+        }
+    }
+
+    /**
+     * Same as addScores(double[][], double[]), for float scores.
+     */
+    public void addScores(float[][] table, float[] scores) {
+        for (int i = 0; i < columns.length; i++) {
+            int[] column = columns[i];
+            float[] issueTable = table[i];
+            for (int c = 0; c < size; c++) {
+                scores[c] += issueTable[column[c]];
+            }
+        }
+    }
+
+    /**
+     * Writes our utility of each candidate into the utilities array.
+     */
+    public void getUtilities(double[] utilities) {
+        Arrays.fill(utilities, 0, size, 0.);
+        addScores(domainIndex.getUtilityTable(), utilities);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > capacity) {
+            capacity = Math.max(required, capacity * 2);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package group9;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import negotiator.Bid;
+
+/**
+ * Facts about a domain and our utility over it which do not change during a
+ * session: the bids of highest and lowest utility, a histogram of our utility
+ * over all the bids, and the OutcomeIndex when the domain is small enough.
+ * They are compiled once per domain and profile, and cached in a file named
+ * after a hash of the issues, values and utility table. Later sessions map the
+ * file in memory, and the OutcomeIndex reads its tables from the mapping
+ * without copying them.
+ *
+ * A cached file is only used if its utility table is exactly the one of the
+ * session and the CRC in its header matches everything after the header, so a
+ * hash collision or a corrupted file, including its mapped outcome keys and
+ * utilities, leads to a recompilation. The CRC is checked once when the file
+ * is read, not on each later access to the mapping.
+ * Files are written under a temporary name and then renamed, so that
+ * concurrent sessions never read a partial file.
+ */
+public class CompiledDomain {
+    private static final int MAGIC = 0x47394443;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Number of histogram buckets per unit of utility.
+     */
+    public static final int HISTOGRAM_RESOLUTION = 1000;
+
+    /**
+     * Directory of the cached files, or an empty string to disable the cache.
+     */
+    public static final String DIRECTORY = System.getProperty("group9.domainCache",
+            Paths.get(System.getProperty("java.io.tmpdir"), "group9-domains").toString());
+
+    private final DomainIndex domainIndex;
+    private final long contentHash;
+    /**
+     * Value index of each issue in the bids of highest and lowest utility.
+     */
+    private final int[] bestValues;
+    private final int[] worstValues;
+    private final double maxUtility;
+    private final double minUtility;
+    private final Bid maxUtilityBid;
+    private final Bid minUtilityBid;
+    /**
+     * Number of bids whose utility, rounded up issue by issue to a multiple
+     * of 1 / HISTOGRAM_RESOLUTION, is at least each multiple.
+     */
+    private final double[] countsAtLeast;
+    /**
+     * Null if the domain is too large to be indexed.
+     */
+    private final OutcomeIndex outcomeIndex;
+
+    private CompiledDomain(DomainIndex domainIndex, long contentHash, int[] bestValues, int[] worstValues,
+            double[] countsAtLeast, OutcomeIndex outcomeIndex) {
+        this.domainIndex = domainIndex;
+        this.contentHash = contentHash;
+        this.bestValues = bestValues;
+        this.worstValues = worstValues;
+        this.countsAtLeast = countsAtLeast;
+        this.outcomeIndex = outcomeIndex;
+        maxUtility = domainIndex.getUtility(bestValues);
+        minUtility = domainIndex.getUtility(worstValues);
+        maxUtilityBid = domainIndex.toBid(bestValues);
+        minUtilityBid = domainIndex.toBid(worstValues);
+    }
+
+    /**
+     * @return The compiled facts of the domain, read from the cache in
+     * DIRECTORY if possible, compiled and cached otherwise.
+     * @param domainIndex Index built from our utility space.
+     */
+    public static CompiledDomain load(DomainIndex domainIndex) {
+        if (DIRECTORY.isEmpty()) {
+            return compile(domainIndex, contentHash(domainIndex));
+        }
+        return load(domainIndex, Paths.get(DIRECTORY));
+    }
+
+    /**
+     * Same as load(DomainIndex), with the cache in the given directory.
+     */
+    static CompiledDomain load(DomainIndex domainIndex, Path directory) {
+        long contentHash = contentHash(domainIndex);
+        Path path = directory.resolve(String.format("%016x.dom", contentHash));
+        CompiledDomain compiled = read(domainIndex, contentHash, path);
+        if (compiled == null) {
+            compiled = compile(domainIndex, contentHash);
+            try {
+                compiled.write(path);
+            } catch (IOException ex) {
+                // The cache is only an optimisation
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * @return A 64-bit hash of the issues and values of the domain and of our
+     * utility of each value.
+     */
+    public static long contentHash(DomainIndex domainIndex) {
+        long hash = domainIndex.getStructureHash();
+        for (double[] issueUtilities : domainIndex.getUtilityTable()) {
+            for (double utility : issueUtilities) {
+                hash = (hash ^ Double.doubleToLongBits(utility)) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @return Every bid of the domain sorted by our utility, or null if the
+     * domain is too large to be indexed.
+     */
+    public OutcomeIndex getOutcomeIndex() {
+        return outcomeIndex;
+    }
+
+    /**
+     * @return The value indices of the bid of highest utility. The array must
+     * not be modified.
+     */
+    public int[] getBestValues() {
+        return bestValues;
+    }
+
+    /**
+     * @return The value indices of the bid of lowest utility. The array must
+     * not be modified.
+     */
+    public int[] getWorstValues() {
+        return worstValues;
+    }
+
+    public double getMaxUtility() {
+        return maxUtility;
+    }
+
+    public double getMinUtility() {
+        return minUtility;
+    }
+
+    public Bid getMaxUtilityBid() {
+        return maxUtilityBid;
+    }
+
+    public Bid getMinUtilityBid() {
+        return minUtilityBid;
+    }
+
+    /**
+     * @return An upper bound of the number of bids having a utility at least
+     * the threshold, exceeding the exact number by the bids within a few
+     * 1 / HISTOGRAM_RESOLUTION below it.
+     */
+    public double getCountBound(double threshold) {
+        int bucket = (int) Math.ceil(threshold * HISTOGRAM_RESOLUTION - 1e-6);
+        if (bucket <= 0) {
+            return countsAtLeast[0];
+        }
+        return bucket < countsAtLeast.length ? countsAtLeast[bucket] : 0;
+    }
+
+    private static CompiledDomain compile(DomainIndex domainIndex, long contentHash) {
+        int issueCount = domainIndex.getIssueCount();
+        int[] bestValues = new int[issueCount];
+        int[] worstValues = new int[issueCount];
+        for (int i = 0; i < issueCount; i++) {
+            for (int v = 1; v < domainIndex.getValueCount(i); v++) {
+                if (domainIndex.getUtility(i, v) > domainIndex.getUtility(i, bestValues[i])) {
+                    bestValues[i] = v;
+                }
+                if (domainIndex.getUtility(i, v) < domainIndex.getUtility(i, worstValues[i])) {
+                    worstValues[i] = v;
+                }
+            }
+        }
+        OutcomeIndex outcomeIndex = OutcomeIndex.fits(domainIndex) ? new OutcomeIndex(domainIndex) : null;
+        return new CompiledDomain(domainIndex, contentHash, bestValues, worstValues, histogram(domainIndex),
+                outcomeIndex);
+    }
+
+    /**
+     * Counts the bids by utility rounded up issue by issue, by convolving the
+     * counts of the issues one after the other, then accumulates the counts
+     * from the top.
+     */
+    private static double[] histogram(DomainIndex domainIndex) {
+        double[] counts = {1};
+        for (int i = 0; i < domainIndex.getIssueCount(); i++) {
+            int valueCount = domainIndex.getValueCount(i);
+            int[] buckets = new int[valueCount];
+            int maxBucket = 0;
+            for (int v = 0; v < valueCount; v++) {
+                buckets[v] = bucket(domainIndex.getUtility(i, v));
+                maxBucket = Math.max(maxBucket, buckets[v]);
+            }
+            double[] next = new double[counts.length + maxBucket];
+            for (int v = 0; v < valueCount; v++) {
+                for (int b = 0; b < counts.length; b++) {
+                    next[b + buckets[v]] += counts[b];
+                }
+            }
+            counts = next;
+        }
+        for (int b = counts.length - 2; b >= 0; b--) {
+            counts[b] += counts[b + 1];
+        }
+        return counts;
+    }
+
+    private static int bucket(double utility) {
+        return Math.max(0, (int) Math.ceil(utility * HISTOGRAM_RESOLUTION));
+    }
+
+    /**
+     * Layout, little-endian: header (magic, version, content hash, issue
+     * count, histogram length, outcome count or -1 if not indexed, CRC of the
+     * rest of the file),
+     * value counts, best and worst value indices, padding to 8 bytes, utility
+     * table, cumulative histogram, outcome utilities and outcome keys.
+     */
+    private void write(Path path) throws IOException {
+        int issueCount = domainIndex.getIssueCount();
+        int tableSize = 0;
+        for (int i = 0; i < issueCount; i++) {
+            tableSize += domainIndex.getValueCount(i);
+        }
+        int outcomeCount = outcomeIndex == null ? -1 : outcomeIndex.size();
+        int outcomes = Math.max(0, outcomeCount);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + align(12 * issueCount)
+                + 8 * (tableSize + countsAtLeast.length) + 12 * outcomes).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(contentHash).putInt(issueCount)
+                .putInt(countsAtLeast.length).putInt(outcomeCount).putInt(0);
+        for (int i = 0; i < issueCount; i++) {
+            buffer.putInt(domainIndex.getValueCount(i));
+        }
+        for (int value : bestValues) {
+            buffer.putInt(value);
+        }
+        for (int value : worstValues) {
+            buffer.putInt(value);
+        }
+        buffer.position(HEADER_SIZE + align(12 * issueCount));
+        for (double[] issueUtilities : domainIndex.getUtilityTable()) {
+            for (double utility : issueUtilities) {
+                buffer.putDouble(utility);
+            }
+        }
+        for (double count : countsAtLeast) {
+            buffer.putDouble(count);
+        }
+        for (int rank = 0; rank < outcomes; rank++) {
+            buffer.putDouble(outcomeIndex.getUtility(rank));
+        }
+        for (int rank = 0; rank < outcomes; rank++) {
+            buffer.putInt(outcomeIndex.getKey(rank));
+        }
+        buffer.putInt(28, crc(buffer, HEADER_SIZE, buffer.limit()));
+        buffer.flip();
+
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return The domain compiled in the file, or null if there is none or it
+     * does not match the domain index.
+     */
+    private static CompiledDomain read(DomainIndex domainIndex, long contentHash, Path path) {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            return null;
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        int issueCount = domainIndex.getIssueCount();
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION
+                || mapped.getLong(8) != contentHash || mapped.getInt(16) != issueCount) {
+            return null;
+        }
+        int histogramLength = mapped.getInt(20);
+        int outcomeCount = mapped.getInt(24);
+        int tableSize = 0;
+        for (int i = 0; i < issueCount; i++) {
+            tableSize += domainIndex.getValueCount(i);
+        }
+        boolean indexed = OutcomeIndex.fits(domainIndex);
+        if (histogramLength <= 0 || outcomeCount != (indexed ? domainIndex.getOutcomeCount() : -1)) {
+            return null;
+        }
+        int outcomes = Math.max(0, outcomeCount);
+        long size = HEADER_SIZE + align(12 * issueCount) + 8L * (tableSize + histogramLength) + 12L * outcomes;
+        if (mapped.capacity() != size || mapped.getInt(28) != crc(mapped, HEADER_SIZE, mapped.capacity())) {
+            return null;
+        }
+
+        mapped.position(HEADER_SIZE);
+        int[] bestValues = new int[issueCount];
+        int[] worstValues = new int[issueCount];
+        for (int i = 0; i < issueCount; i++) {
+            if (mapped.getInt() != domainIndex.getValueCount(i)) {
+                return null;
+            }
+        }
+        for (int[] extremes : new int[][] {bestValues, worstValues}) {
+            for (int i = 0; i < issueCount; i++) {
+                extremes[i] = mapped.getInt();
+                if (extremes[i] < 0 || extremes[i] >= domainIndex.getValueCount(i)) {
+                    return null;
+                }
+            }
+        }
+        mapped.position(HEADER_SIZE + align(12 * issueCount));
+        for (double[] issueUtilities : domainIndex.getUtilityTable()) {
+            for (double utility : issueUtilities) {
+                if (Double.doubleToLongBits(mapped.getDouble()) != Double.doubleToLongBits(utility)) {
+                    return null;
+                }
+            }
+        }
+        double[] countsAtLeast = new double[histogramLength];
+        mapped.asDoubleBuffer().get(countsAtLeast);
+        mapped.position(mapped.position() + 8 * histogramLength);
+
+        OutcomeIndex outcomeIndex = null;
+        if (indexed) {
+            DoubleBuffer utilities = slice(mapped, 8 * outcomes).asDoubleBuffer();
+            IntBuffer keys = slice(mapped, 4 * outcomes).asIntBuffer();
+            outcomeIndex = new OutcomeIndex(domainIndex, keys, utilities);
+        }
+        return new CompiledDomain(domainIndex, contentHash, bestValues, worstValues, countsAtLeast, outcomeIndex);
+    }
+
+    /**
+     * @return The next bytes of the buffer as a buffer of the same order,
+     * advancing its position past them.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice.order(buffer.order());
+    }
+
+    private static int crc(ByteBuffer buffer, int start, int end) {
+        ByteBuffer region = buffer.duplicate();
+        region.limit(end).position(start);
+        CRC32 crc = new CRC32();
+        crc.update(region);
+        return (int) crc.getValue();
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
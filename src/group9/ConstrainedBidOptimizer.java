@@ -0,0 +1,138 @@
+package group9;
+
+import java.util.Arrays;
+
+/**
+ * Finds the bid maximising an additive opponent score among all the bids
+ * having a utility for us above a threshold, without enumerating the outcome
+ * space. Since both our utility and the score are sums of per-issue terms,
+ * this is a knapsack-like problem, solved by dynamic programming over the
+ * issues and over our utility discretised in buckets. The work done is the
+ * total number of values times the number of buckets, which is bounded by a
+ * fixed budget.
+ *
+ * The utility of each value is rounded down to a bucket, so that a bid found
+ * is guaranteed to be above the threshold; bids within one bucket per issue
+ * of the threshold may be missed.
+ *
+ * If our utility of every bid is 0 (or not known), there is nothing to
+ * discretise and the optimiser finds no bid, leaving the caller to sample.
+ */
+public class ConstrainedBidOptimizer {
+    /**
+     * Maximum number of value-bucket pairs evaluated per optimisation.
+     */
+    private static final int MAX_CELLS = 1 << 21;
+    private static final int MIN_BUCKETS = 64;
+    private static final int MAX_BUCKETS = 10000;
+
+    private final DomainIndex domainIndex;
+    /**
+     * Number of buckets for the utility range [0, maxUtility], 0 if
+     * maxUtility is not positive.
+     */
+    private final int buckets;
+    private final double maxUtility;
+    /**
+     * Our utility of each value, in buckets, rounded down.
+     */
+    private final int[][] ownBuckets;
+    /**
+     * Best score reachable from each issue for each accumulated bucket, reused
+     * between optimisations.
+     */
+    private final double[][] bestScores;
+
+    public ConstrainedBidOptimizer(DomainIndex domainIndex) {
+        this.domainIndex = domainIndex;
+        int issueCount = domainIndex.getIssueCount();
+
+        int valueCount = 0;
+        double utility = 0;
+        for (int i = 0; i < issueCount; i++) {
+            valueCount += domainIndex.getValueCount(i);
+            double issueMax = 0;
+            for (int v = 0; v < domainIndex.getValueCount(i); v++) {
+                issueMax = Math.max(issueMax, domainIndex.getUtility(i, v));
+            }
+            utility += issueMax;
+        }
+        maxUtility = utility;
+        buckets = maxUtility > 0 ? Math.max(MIN_BUCKETS, Math.min(MAX_BUCKETS, MAX_CELLS / Math.max(1, valueCount))) : 0;
+
+        ownBuckets = new int[issueCount][];
+        for (int i = 0; i < issueCount; i++) {
+            ownBuckets[i] = new int[domainIndex.getValueCount(i)];
+            for (int v = 0; v < ownBuckets[i].length; v++) {
+                ownBuckets[i][v] = buckets == 0 ? 0
+                        : (int) Math.floor(domainIndex.getUtility(i, v) / maxUtility * buckets);
+            }
+        }
+        bestScores = new double[issueCount + 1][buckets + 1];
+    }
+
+    /**
+     * Finds the bid maximising the opponent score, among the bids having a
+     * utility greater or equal to the threshold.
+     * @param opponentScores Score of each value of each issue, indexed as in
+     * the DomainIndex.
+     * @param threshold Minimum utility for us.
+     * @param result Array receiving the value indices of the best bid.
+     * @return The result array, or null if no bid was found above the
+     * threshold, or if the thread was interrupted, which cancels a search run
+     * in the background (see Speculation).
+     */
+    public int[] optimize(double[][] opponentScores, double threshold, int[] result) {
+        if (buckets == 0) {
+            return null;
+        }
+        int issueCount = domainIndex.getIssueCount();
+        // Bucket to reach, the accumulated bucket is capped to it
+        int target = (int) Math.ceil(Math.max(0, threshold) / maxUtility * buckets);
+        if (target > buckets) {
+            return null;
+        }
+
+        // Backward pass: best score of issues i.. given the bucket accumulated so far
+        Arrays.fill(bestScores[issueCount], 0, target, Double.NEGATIVE_INFINITY);
+        bestScores[issueCount][target] = 0;
+        for (int i = issueCount - 1; i >= 0; i--) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            double[] next = bestScores[i + 1];
+            double[] current = bestScores[i];
+            for (int s = 0; s <= target; s++) {
+                double best = Double.NEGATIVE_INFINITY;
+                for (int v = 0; v < ownBuckets[i].length; v++) {
+                    double score = opponentScores[i][v] + next[Math.min(target, s + ownBuckets[i][v])];
+                    if (score > best) {
+                        best = score;
+                    }
+                }
+                current[s] = best;
+            }
+        }
+        if (bestScores[0][0] == Double.NEGATIVE_INFINITY) {
+            return null;
+        }
+
+        // Forward pass: follow the choices leading to the best score
+        int s = 0;
+        for (int i = 0; i < issueCount; i++) {
+            double[] next = bestScores[i + 1];
+            int bestValue = -1;
+            double best = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < ownBuckets[i].length; v++) {
+                double score = opponentScores[i][v] + next[Math.min(target, s + ownBuckets[i][v])];
+                if (score > best) {
+                    best = score;
+                    bestValue = v;
+                }
+            }
+            result[i] = bestValue;
+            s = Math.min(target, s + ownBuckets[i][bestValue]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,274 @@
+package group9;
+
+import java.util.HashMap;
+import java.util.List;
+import negotiator.Bid;
+import negotiator.Domain;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.EvaluatorDiscrete;
+
+/**
+ * Integer view of a discrete domain. Every value of every issue gets a small
+ * index, so that a bid can be handled as an array of value indices, or as a
+ * single mixed-radix long, instead of a Bid wrapping a HashMap. When built from
+ * an additive utility space, it also holds our utility contribution (issue
+ * weight times value evaluation) of every value of every issue.
+ */
+public class DomainIndex {
+    private final Domain domain;
+    /**
+     * Issue number (as used by Bid.getValue) of each issue index.
+     */
+    private final int[] issueNumbers;
+    private final ValueDiscrete[][] values;
+    private final HashMap<Value, Integer>[] valueIndices;
+    /**
+     * Place value of each issue in the mixed-radix encoding of a bid.
+     */
+    private final long[] placeValues;
+    /**
+     * Number of possible bids, or -1 if it does not fit in a long.
+     */
+    private final long outcomeCount;
+    /**
+     * Our utility contribution of each value of each issue, or null if no
+     * utility space was given.
+     */
+    private final double[][] utilities;
+
+    public DomainIndex(Domain domain) {
+        this(domain, null);
+    }
+
+    public DomainIndex(AdditiveUtilitySpace utilitySpace) {
+        this(utilitySpace.getDomain(), utilitySpace);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DomainIndex(Domain domain, AdditiveUtilitySpace utilitySpace) {
+        this.domain = domain;
+        List<Issue> issues = domain.getIssues();
+        int issueCount = issues.size();
+
+        issueNumbers = new int[issueCount];
+        values = new ValueDiscrete[issueCount][];
+        valueIndices = new HashMap[issueCount];
+        placeValues = new long[issueCount];
+        utilities = utilitySpace == null ? null : new double[issueCount][];
+
+        long count = 1;
+        for (int i = 0; i < issueCount; i++) {
+            IssueDiscrete issue = (IssueDiscrete) issues.get(i);
+            List<ValueDiscrete> issueValues = issue.getValues();
+            issueNumbers[i] = issue.getNumber();
+            values[i] = issueValues.toArray(new ValueDiscrete[issueValues.size()]);
+            valueIndices[i] = new HashMap<>();
+            for (int v = 0; v < values[i].length; v++) {
+                valueIndices[i].put(values[i][v], v);
+            }
+
+            placeValues[i] = count;
+            if (count >= 0) {
+                count = values[i].length == 0 || count <= Long.MAX_VALUE / values[i].length
+                        ? count * values[i].length : -1;
+            }
+
+            if (utilitySpace != null) {
+                EvaluatorDiscrete evaluator = (EvaluatorDiscrete) utilitySpace.getEvaluator(issue.getNumber());
+                utilities[i] = new double[values[i].length];
+                for (int v = 0; v < values[i].length; v++) {
+                    utilities[i][v] = evaluator.getWeight() * evaluator.getDoubleValue(values[i][v]);
+                }
+            }
+        }
+        outcomeCount = count;
+    }
+
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return A 64-bit hash of the issues and values of the domain, equal in
+     * every session on the same domain whatever the preferences.
+     */
+    public long getStructureHash() {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < values.length; i++) {
+            hash = (hash ^ issueNumbers[i]) * 0x100000001B3L;
+            for (ValueDiscrete value : values[i]) {
+                for (char c : String.valueOf(value.getValue()).toCharArray()) {
+                    hash = (hash ^ c) * 0x100000001B3L;
+                }
+                hash = (hash ^ 0xFF) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+
+    public int getIssueCount() {
+        return values.length;
+    }
+
+    public int getValueCount(int issue) {
+        return values[issue].length;
+    }
+
+    public int getIssueNumber(int issue) {
+        return issueNumbers[issue];
+    }
+
+    public ValueDiscrete getValue(int issue, int valueIndex) {
+        return values[issue][valueIndex];
+    }
+
+    /**
+     * @return The index of the given value in the given issue, or -1 if it
+     * does not belong to this issue.
+     */
+    public int getValueIndex(int issue, Value value) {
+        Integer index = valueIndices[issue].get(value);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Writes the value indices of a bid into the given array.
+     * @return The given array.
+     */
+    public int[] toIndices(Bid bid, int[] indices) {
+        for (int i = 0; i < values.length; i++) {
+            indices[i] = getValueIndex(i, bid.getValue(issueNumbers[i]));
+        }
+        return indices;
+    }
+
+    public int[] toIndices(Bid bid) {
+        return toIndices(bid, new int[values.length]);
+    }
+
+    public Bid toBid(int[] indices) {
+        HashMap<Integer, Value> bidValues = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            bidValues.put(issueNumbers[i], values[i][indices[i]]);
+        }
+        return new Bid(domain, bidValues);
+    }
+
+    /**
+     * @return Whether every bid of the domain can be encoded as a long.
+     */
+    public boolean canEncode() {
+        return outcomeCount >= 0;
+    }
+
+    /**
+     * @return The number of possible bids, or -1 if it does not fit in a long.
+     */
+    public long getOutcomeCount() {
+        return outcomeCount;
+    }
+
+    /**
+     * Encodes value indices as a mixed-radix number. Only valid if
+     * canEncode() holds.
+     */
+    public long encode(int[] indices) {
+        long key = 0;
+        for (int i = 0; i < values.length; i++) {
+            key += indices[i] * placeValues[i];
+        }
+        return key;
+    }
+
+    /**
+     * @return A long identifying the given bid: its encoding if canEncode()
+     * holds, otherwise a 64-bit hash of its value indices.
+     */
+    public long fingerprint(int[] indices) {
+        if (canEncode()) {
+            return encode(indices);
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < values.length; i++) {
+            hash = (hash ^ indices[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    public long encode(Bid bid) {
+        long key = 0;
+        for (int i = 0; i < values.length; i++) {
+            key += getValueIndex(i, bid.getValue(issueNumbers[i])) * placeValues[i];
+        }
+        return key;
+    }
+
+    /**
+     * Writes the value indices of an encoded bid into the given array.
+     * @return The given array.
+     */
+    public int[] decode(long key, int[] indices) {
+        for (int i = 0; i < values.length; i++) {
+            indices[i] = (int) (key % values[i].length);
+            key /= values[i].length;
+        }
+        return indices;
+    }
+
+    public Bid toBid(long key) {
+        return toBid(decode(key, new int[values.length]));
+    }
+
+    public boolean hasUtilities() {
+        return utilities != null;
+    }
+
+    /**
+     * @return Our utility contribution of a value, that is the weight of the
+     * issue times the evaluation of the value.
+     */
+    public double getUtility(int issue, int valueIndex) {
+        return utilities[issue][valueIndex];
+    }
+
+    /**
+     * @return Our utility contribution of each value of each issue, indexed as
+     * getUtility(int, int). The array must not be modified.
+     */
+    public double[][] getUtilityTable() {
+        return utilities;
+    }
+
+    public double getUtility(int[] indices) {
+        double utility = 0;
+        for (int i = 0; i < values.length; i++) {
+            utility += utilities[i][indices[i]];
+        }
+        return utility;
+    }
+
+    /**
+     * @return Our utility of a bid, computed from the tables without
+     * allocating.
+     */
+    public double getUtility(Bid bid) {
+        double utility = 0;
+        for (int i = 0; i < values.length; i++) {
+            utility += utilities[i][getValueIndex(i, bid.getValue(issueNumbers[i]))];
+        }
+        return utility;
+    }
+
+    public double getUtility(long key) {
+        double utility = 0;
+        for (int i = 0; i < values.length; i++) {
+            utility += utilities[i][(int) (key % values[i].length)];
+            key /= values[i].length;
+        }
+        return utility;
+    }
+}
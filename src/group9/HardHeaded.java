@@ -1,6 +1,7 @@
 package group9;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,8 +9,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import negotiator.AgentID;
 import negotiator.Bid;
 import negotiator.actions.Accept;
@@ -29,7 +28,7 @@ import negotiator.utility.AdditiveUtilitySpace;
  * maximum utility bid. Otherwise, it proposes the bid which maximises the
  * average of estimated opponent utilities.
  */
-public class HardHeaded extends AbstractNegotiationParty {
+public class HardHeaded extends AbstractNegotiationParty implements ObservationConsumer {
 
     private final String description = "HardHeaded";
     /**
@@ -58,6 +57,11 @@ public class HardHeaded extends AbstractNegotiationParty {
      * opponent model.
      */
     private final double epsilon = 0.05;
+    /**
+     * Largest difference between the threshold of a turn and the one
+     * predicted for it for the precomputed best bid to be offered.
+     */
+    private static final double SPECULATION_TOLERANCE = 0.002;
     /**
      * Random number generator, for using epsilon-greedy algorithm.
      */
@@ -66,20 +70,88 @@ public class HardHeaded extends AbstractNegotiationParty {
      * The bid on the table.
      */
     private Bid lastReceivedBid;
+    /**
+     * Decodes the received messages, possibly shared with other parties.
+     */
+    private ObservationStore observationStore;
+    /**
+     * Integer view of the domain and of our utility function.
+     */
+    private DomainIndex domainIndex;
+    /**
+     * Our utility of the bids evaluated so far in the session.
+     */
+    private UtilityCache utilityCache;
+    /**
+     * All the bids of the domain sorted by utility, or null if the domain is
+     * too large to be indexed.
+     */
+    private OutcomeIndex outcomeIndex;
+    /**
+     * Extreme bids and utility histogram of the domain.
+     */
+    private CompiledDomain compiledDomain;
+    /**
+     * Finds the best bid for the opponents above our threshold.
+     */
+    private ConstrainedBidOptimizer optimizer;
+    /**
+     * Draws random bids above the threshold when the domain is not indexed.
+     */
+    private BidSampler bidSampler;
+    private int[] sampledValues;
+    /**
+     * Candidate bids being scored, reused from turn to turn.
+     */
+    private CandidateBatch candidates;
+    /**
+     * Opponent score of the candidate bids being scored.
+     */
+    private double[] candidateScores = new double[0];
+    /**
+     * Latency histograms of the methods, dumped at the end of the session.
+     */
+    private final Timings timings = new Timings("HardHeaded");
+    /**
+     * Wall time the bid searches may take in the current turn.
+     */
+    private final TurnBudget turnBudget = new TurnBudget();
+    /**
+     * Best bid for the threshold of the next turn, computed between the
+     * turns, or null if the parties are not pipelined.
+     */
+    private Speculation<int[]> speculation;
+    /**
+     * Optimizer used by the speculation, since optimizers are not thread
+     * safe.
+     */
+    private ConstrainedBidOptimizer speculativeOptimizer;
+    /**
+     * Time until which only the max utility bid is offered.
+     */
+    private double openingEnd = 0.1;
 
     @Override
     public void init(NegotiationInfo info) {
         super.init(info);
         additiveUtilitySpace = (AdditiveUtilitySpace) info.getUtilitySpace();
-        try {
-            Bid maxBid = this.additiveUtilitySpace.getMaxUtilityBid();
-            maxUtility = additiveUtilitySpace.getUtility(maxBid);
-            Bid minBid = this.additiveUtilitySpace.getMinUtilityBid();
-            minUtility = additiveUtilitySpace.getUtility(minBid);
-        } catch (Exception ex) {
-            Logger.getLogger(Agent9.class.getName()).log(Level.SEVERE, null, ex);
+        if (observationStore == null) {
+            observationStore = new ObservationStore(additiveUtilitySpace);
+        }
+        domainIndex = observationStore.getDomainIndex();
+        utilityCache = new UtilityCache(domainIndex);
+        compiledDomain = observationStore.getCompiledDomain();
+        outcomeIndex = compiledDomain.getOutcomeIndex();
+        maxUtility = compiledDomain.getMaxUtility();
+        minUtility = compiledDomain.getMinUtility();
+        candidates = new CandidateBatch(domainIndex);
+        optimizer = new ConstrainedBidOptimizer(domainIndex);
+        bidSampler = new BidSampler(domainIndex, randomGenerator);
+        sampledValues = new int[domainIndex.getIssueCount()];
+        if (Speculation.ENABLED) {
+            speculation = new Speculation<>("HardHeaded speculation");
+            speculativeOptimizer = new ConstrainedBidOptimizer(domainIndex);
         }
-
     }
 
     /**
@@ -93,55 +165,110 @@ public class HardHeaded extends AbstractNegotiationParty {
      */
     @Override
     public Action chooseAction(List<Class<? extends Action>> list) {
+        long start = timings.start();
+        turnBudget.startTurn(getTimeLine().getTime());
+        Action action = selectAction(list);
+        turnBudget.endTurn();
+        timings.stop("chooseAction", start);
+        if (speculation != null && action instanceof Offer) {
+            speculate();
+        }
+        return action;
+    }
+
+    /**
+     * Starts computing the best bid for the threshold predicted for the next
+     * turn, with the opponent models as of now.
+     */
+    private void speculate() {
+        double nextTime = turnBudget.getNextTurnTime();
+        if (Double.isNaN(nextTime) || nextTime <= openingEnd) {
+            return;
+        }
+        double threshold = getUtilityThreshold(nextTime);
+        double[][] opponentScores = getOpponentScoreTable();
+        int issueCount = domainIndex.getIssueCount();
+        speculation.start(threshold,
+                () -> speculativeOptimizer.optimize(opponentScores, threshold, new int[issueCount]));
+    }
+
+    private Action selectAction(List<Class<? extends Action>> list) {
         // Simulate the first 10% of testing
         double time = getTimeLine().getTime();
-        if(time <= 0.1) {
+        if(time <= openingEnd) {
             return new Offer(this.getPartyId(), getMaxUtilityBid());
         }
         
-        double utilityThreshold = getUtilityThreshold();
+        double utilityThreshold = getUtilityThreshold(time);
 
         // Check if the last bid is above our threshold
         if (lastReceivedBid != null) {
-            double lastBidUtility = additiveUtilitySpace.getUtility(lastReceivedBid);
+            double lastBidUtility = utilityCache.getUtility(lastReceivedBid);
             if (lastBidUtility >= utilityThreshold) {
                 return new Accept(this.getPartyId(), lastReceivedBid);
             }
         }
 
-        // Generate a bunch of bids above the threshold
-        Set<Bid> bidSet = generateBids(utilityThreshold, 30, 10000);
-        
         // Epsilon-greedy: with probability eps, we send a random acceptable offer
         if(randomGenerator.nextDouble() <= epsilon) {
+            // Generate a bunch of bids above the threshold
+            long start = timings.start();
+            Set<Bid> bidSet = generateBids(utilityThreshold, 30);
+            timings.stop("generateBids", start);
             return new Offer(this.getPartyId(), takeRandomBid(bidSet));
         } else {
             // Else, find the best bid according to our model of the opponent
-            Bid bestBid = Collections.max(bidSet, (Bid lhs, Bid rhs) -> 
-                Double.compare(getOpponentScore(lhs), getOpponentScore(rhs))
-            );
-            return new Offer(this.getPartyId(), bestBid);
+            return new Offer(this.getPartyId(), getBestBid(utilityThreshold));
+        }
+    }
+
+    /**
+     * Finds the bid maximising the opponent score among all the bids above
+     * the threshold. If the optimiser finds none, the best of a bunch of
+     * random bids above the threshold is taken instead. The bid precomputed
+     * for this turn is taken instead if it was computed for about the same
+     * threshold, although its opponent models miss the last offers.
+     */
+    private Bid getBestBid(double threshold) {
+        long start = timings.start();
+        int[] best = speculation == null ? null : speculation.take(threshold, SPECULATION_TOLERANCE);
+        if (best != null && domainIndex.getUtility(best) >= threshold) {
+            timings.stop("speculated", start);
+            return domainIndex.toBid(best);
+        }
+        best = optimizer.optimize(getOpponentScoreTable(), threshold, new int[domainIndex.getIssueCount()]);
+        timings.stop("optimize", start);
+        if (best != null) {
+            return domainIndex.toBid(best);
         }
+        start = timings.start();
+        Set<Bid> bidSet = generateBids(threshold, 30);
+        timings.stop("generateBids", start);
+        start = timings.start();
+        Bid bid = getBestScoredBid(bidSet);
+        timings.stop("getBestScoredBid", start);
+        return bid;
     }
     
-    private double getUtilityThreshold() {
+    private double getUtilityThreshold(double time) {
         return maxUtility - (maxUtility - minUtility)
-                * Math.pow(getTimeLine().getTime(), 1 / concessionRate);
+                * Math.pow(time, 1 / concessionRate);
 
     }
 
     /** 
-     * Generates a set of bids with utility above a given threshold. The function
-     * stops after a certain number of iteration, to avoid spinning until the
-     * end of the negotiation.
+     * Generates a set of bids with utility above a given threshold. If the
+     * domain is indexed, the bids are drawn directly among those above the
+     * threshold. Otherwise, random bids above the threshold are sampled
+     * until the budget of the turn is spent, or no new bid was found for a
+     * while.
      * @param threshold The utility threshold
      * @param numberOfBids The desired number of bids above this threshold in
      * the result.
-     * @param spinLimit The maximum number of iterations.
      * @return A set that, hopefully, contains numberOfBids bids having a utility
      * above the threshold.
      */
-    private Set<Bid> generateBids(double threshold, int numberOfBids, int spinLimit) {
+    private Set<Bid> generateBids(double threshold, int numberOfBids) {
         Set<Bid> result = new HashSet<>();
         // Fail-safe: we ensure that we at least always propose our max utility bid
         result.add(getMaxUtilityBid());
@@ -149,25 +276,40 @@ public class HardHeaded extends AbstractNegotiationParty {
         if (threshold > maxUtility || threshold < minUtility) {
             return result;
         }
+        if (outcomeIndex != null) {
+            drawIndexedBids(result, threshold, numberOfBids);
+            return result;
+        }
 
-        // If we spend 1/10 of the allowed time without finding anything new, then stop
-        int deadSpinLimit = spinLimit / 10;
-        int spinCount = 0;
-        int deadSpinCount = 0;
+        long lastProgress = System.nanoTime();
         do {
-            Bid randomBid = generateRandomBid();
-            if (additiveUtilitySpace.getUtility(randomBid) >= threshold) {
-                if(!result.contains(randomBid)) {
-                    deadSpinCount = -1;
-                }
-                result.add(randomBid);
+            if (bidSampler.sample(threshold, sampledValues) && result.add(domainIndex.toBid(sampledValues))) {
+                lastProgress = System.nanoTime();
             }
-            spinCount++;
-            deadSpinCount++;
-        } while (result.size() < numberOfBids && spinCount < spinLimit && deadSpinCount < deadSpinLimit);
+        } while (result.size() < numberOfBids && !turnBudget.isIdle(lastProgress));
         return result;
     }
 
+    /**
+     * Adds to the set bids drawn uniformly among all the bids having a utility
+     * above the threshold, until it contains numberOfBids bids or all of them.
+     */
+    private void drawIndexedBids(Set<Bid> result, double threshold, int numberOfBids) {
+        int available = outcomeIndex.countAtLeast(threshold);
+        if (available <= 2 * numberOfBids) {
+            // Few enough bids above the threshold, take them from the best one
+            for (int rank = 0; rank < available && result.size() < numberOfBids; rank++) {
+                result.add(domainIndex.toBid(outcomeIndex.getKey(rank)));
+            }
+        } else {
+            // At least half of the draws are new bids
+            while (result.size() < numberOfBids) {
+                int rank = randomGenerator.nextInt(available);
+                result.add(domainIndex.toBid(outcomeIndex.getKey(rank)));
+            }
+        }
+    }
+
     /**
      * This method is called to inform the party that another NegotiationParty
      * chose an Action.
@@ -175,27 +317,89 @@ public class HardHeaded extends AbstractNegotiationParty {
     @Override
     public void receiveMessage(AgentID sender, Action act) {
         super.receiveMessage(sender, act);
-        if (act instanceof Offer) {
-            Bid bid = ((Offer) act).getBid();
-            opponentsModels.putIfAbsent(sender, new OpponentModelTheo());
-            opponentsModels.get(sender).registerBid(bid, getUtility(bid));
+        observe(observationStore.record(sender, act, getTimeLine().getTime()));
+    }
+
+    @Override
+    public void useObservationStore(ObservationStore store) {
+        observationStore = store;
+    }
+
+    @Override
+    public void endOpening(double time) {
+        openingEnd = time;
+    }
+
+    @Override
+    public void observe(Observation observation) {
+        long start = timings.start();
+        if (observation.getAction() instanceof Offer) {
+            AgentID sender = observation.getSender();
+            opponentsModels.putIfAbsent(sender, new OpponentModelTheo(domainIndex));
+            opponentsModels.get(sender).registerBid(observation.getValues(), observation.getUtility());
 
             // Storing last received bid
-            lastReceivedBid = bid;
+            lastReceivedBid = observation.getBid();
         }
+        timings.stop("observe", start);
+    }
+
+    @Override
+    public Map<String, String> negotiationEnded(Bid acceptedBid) {
+        if (speculation != null) {
+            speculation.close();
+            speculation = null;
+        }
+        timings.dump();
+        return super.negotiationEnded(acceptedBid);
     }
 
     /**
-     * Calculates a score representing the preferences of the opponents on a bid.
-     * @param bid The bid to evaluate.
-     * @return An estimated measure of preference of the opponents on this bid.
+     * Finds the bid of a set with the highest score representing the
+     * preferences of the opponents. The bids are scored in a batch, in buffers
+     * reused from turn to turn.
+     * @param bidSet The bids to evaluate.
+     * @return The bid with the highest estimated measure of preference of the
+     * opponents.
      */
-    private double getOpponentScore(Bid bid) {
-        double score = 0;
-        for(OpponentModelTheo model : opponentsModels.values()) {
-            score += model.getEstimatedScore(bid);
+    private Bid getBestScoredBid(Set<Bid> bidSet) {
+        if (candidateScores.length < bidSet.size()) {
+            candidateScores = new double[bidSet.size()];
+        }
+        List<Bid> bids = new ArrayList<>(bidSet);
+        candidates.clear();
+        for (Bid bid : bids) {
+            candidates.add(bid);
         }
-        return score;
+        Arrays.fill(candidateScores, 0, bids.size(), 0.);
+        for (OpponentModelTheo model : opponentsModels.values()) {
+            model.scoreAll(candidates, candidateScores);
+        }
+
+        int best = 0;
+        for (int b = 1; b < bids.size(); b++) {
+            if (candidateScores[b] > candidateScores[best]) {
+                best = b;
+            }
+        }
+        return bids.get(best);
+    }
+
+    /**
+     * Sums the estimated scores of the opponents for each value of each issue.
+     * The opponent score of a bid is the sum of the entries of its values.
+     */
+    private double[][] getOpponentScoreTable() {
+        double[][] table = new double[domainIndex.getIssueCount()][];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new double[domainIndex.getValueCount(i)];
+            for (int v = 0; v < table[i].length; v++) {
+                for (OpponentModelTheo model : opponentsModels.values()) {
+                    table[i][v] += model.getValueScore(i, v);
+                }
+            }
+        }
+        return table;
     }
 
     /**
@@ -212,15 +416,10 @@ public class HardHeaded extends AbstractNegotiationParty {
     }
 
     /**
-     * @return the bid with the maximum possible utility, if it exists.
+     * @return the bid with the maximum possible utility.
      */
     private Bid getMaxUtilityBid() {
-        try {
-            return this.additiveUtilitySpace.getMaxUtilityBid();
-        } catch (Exception ex) {
-            Logger.getLogger(Agent9.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        return null;
+        return compiledDomain.getMaxUtilityBid();
     }
     
     private Bid takeRandomBid(Set<Bid> bidSet) {
@@ -0,0 +1,129 @@
+package group9;
+
+/**
+ * Histogram of latencies in nanoseconds, with buckets growing exponentially:
+ * each power of two is split in SUB_BUCKETS buckets, which bounds the
+ * relative error to 1 / SUB_BUCKETS with a fixed number of counters.
+ * Histograms can be written as a line of text, parsed back and merged, to
+ * aggregate them over many sessions. Recording is not synchronised: a
+ * histogram must be updated by one thread at a time.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] += other.counts[b];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return An upper bound of the given percentile (between 0 and 1), within
+     * the precision of the buckets.
+     */
+    public long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank && counts[b] > 0) {
+                return Math.min(max, upperBound(b));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return The histogram as "count;sum;min;max;bucket:count,...", listing
+     * only the non-empty buckets.
+     */
+    public String format() {
+        StringBuilder line = new StringBuilder();
+        line.append(count).append(';').append(sum).append(';').append(min).append(';').append(max).append(';');
+        boolean first = true;
+        for (int b = 0; b < BUCKETS; b++) {
+            if (counts[b] > 0) {
+                if (!first) {
+                    line.append(',');
+                }
+                line.append(b).append(':').append(counts[b]);
+                first = false;
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Parses a histogram written by format().
+     */
+    public static LatencyHistogram parse(String text) {
+        String[] fields = text.split(";", -1);
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.count = Long.parseLong(fields[0]);
+        histogram.sum = Long.parseLong(fields[1]);
+        histogram.min = Long.parseLong(fields[2]);
+        histogram.max = Long.parseLong(fields[3]);
+        if (!fields[4].isEmpty()) {
+            for (String bucket : fields[4].split(",")) {
+                int colon = bucket.indexOf(':');
+                histogram.counts[Integer.parseInt(bucket.substring(0, colon))] = Long.parseLong(bucket.substring(colon + 1));
+            }
+        }
+        return histogram;
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
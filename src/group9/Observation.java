@@ -0,0 +1,61 @@
+package group9;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Action;
+
+/**
+ * An action received from another agent, decoded once by the
+ * ObservationStore and shared by all the models reading it.
+ */
+public class Observation {
+    private final AgentID sender;
+    private final Action action;
+    private final Bid bid;
+    private final int[] values;
+    private final double utility;
+    private final double time;
+
+    public Observation(AgentID sender, Action action, Bid bid, int[] values, double utility, double time) {
+        this.sender = sender;
+        this.action = action;
+        this.bid = bid;
+        this.values = values;
+        this.utility = utility;
+        this.time = time;
+    }
+
+    public AgentID getSender() {
+        return sender;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * @return The bid of the offer or accept, or null if the action has none.
+     */
+    public Bid getBid() {
+        return bid;
+    }
+
+    /**
+     * @return The value indices of the bid in the DomainIndex of the store,
+     * or null if the action has no bid. Must not be modified.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return Our utility of the bid, or NaN if the action has no bid.
+     */
+    public double getUtility() {
+        return utility;
+    }
+
+    public double getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,25 @@
+package group9;
+
+/**
+ * A party able to read its messages from an ObservationStore shared with
+ * other parties, rather than decoding them itself.
+ */
+public interface ObservationConsumer {
+    /**
+     * Makes the party use the given store. Must be called before init, the
+     * party creating its own store otherwise.
+     */
+    void useObservationStore(ObservationStore store);
+
+    /**
+     * Same as receiveMessage, for a message already recorded in the store.
+     */
+    void observe(Observation observation);
+
+    /**
+     * Ends at the given time the opening, during which the party only offers
+     * its best bid as Agent9 does while it analyses the opponents, instead of
+     * at 0.1. Used when Agent9 chooses the party early.
+     */
+    void endOpening(double time);
+}
@@ -0,0 +1,101 @@
+package group9;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Session-wide store of the messages received from the other agents. Each
+ * message is decoded only once into an Observation: the bid is translated to
+ * value indices and our utility of it is computed. The store also keeps
+ * running statistics of the utility of the offers of each agent, a cache of
+ * our utility of the bids received, and the compiled facts about the domain.
+ * Messages must be recorded by one thread at a time.
+ */
+public class ObservationStore {
+    private final DomainIndex domainIndex;
+    private final UtilityCache utilityCache;
+    private CompiledDomain compiledDomain;
+    private final Map<AgentID, RunningStats> offerStatistics = new LinkedHashMap<>();
+
+    public ObservationStore(AdditiveUtilitySpace utilitySpace) {
+        domainIndex = new DomainIndex(utilitySpace);
+        utilityCache = new UtilityCache(domainIndex);
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    /**
+     * @return The cache of our utility of the bids received, for its hit and
+     * miss counters. Only the thread recording the messages may use it.
+     */
+    public UtilityCache getUtilityCache() {
+        return utilityCache;
+    }
+
+    /**
+     * @return The compiled facts about the domain, loaded or compiled at the
+     * first call.
+     */
+    public synchronized CompiledDomain getCompiledDomain() {
+        if (compiledDomain == null) {
+            compiledDomain = CompiledDomain.load(domainIndex);
+        }
+        return compiledDomain;
+    }
+
+    /**
+     * @return Every bid of the domain sorted by our utility, or null if the
+     * domain is too large to be indexed.
+     */
+    public OutcomeIndex getOutcomeIndex() {
+        return getCompiledDomain().getOutcomeIndex();
+    }
+
+    /**
+     * Decodes a received action.
+     */
+    public Observation record(AgentID sender, Action act, double time) {
+        Bid bid = null;
+        if (act instanceof Offer) {
+            bid = ((Offer) act).getBid();
+        } else if (act instanceof Accept) {
+            bid = ((Accept) act).getBid();
+        }
+        if (bid == null) {
+            return new Observation(sender, act, null, null, Double.NaN, time);
+        }
+
+        int[] values = domainIndex.toIndices(bid);
+        double utility = utilityCache.getUtility(values);
+        if (act instanceof Offer && sender != null) {
+            synchronized (offerStatistics) {
+                offerStatistics.computeIfAbsent(sender, agent -> new RunningStats()).add(utility);
+            }
+        }
+        return new Observation(sender, act, bid, values, utility, time);
+    }
+
+    /**
+     * @return A copy of the statistics of our utility of the offers received
+     * so far from each agent, in order of first offer.
+     */
+    public Map<AgentID, RunningStats> getOfferStatistics() {
+        Map<AgentID, RunningStats> copy = new LinkedHashMap<>();
+        synchronized (offerStatistics) {
+            for (Map.Entry<AgentID, RunningStats> e : offerStatistics.entrySet()) {
+                RunningStats stats = new RunningStats();
+                stats.merge(e.getValue());
+                copy.put(e.getKey(), stats);
+            }
+        }
+        return copy;
+    }
+}
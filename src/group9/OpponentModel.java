@@ -1,182 +1,233 @@
 package group9;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Map.Entry;
 
 import negotiator.AgentID;
 import negotiator.Bid;
-import negotiator.issue.IssueDiscrete;
-import negotiator.issue.ValueDiscrete;
 
+/**
+ * Frequency model of the preferences of several opponents. The frequencies,
+ * their sums and their maxima are stored in arrays indexed by agent, issue and
+ * value, and kept up to date at each update, so that normalising them is
+ * cheap. The weighted preferences of all the opponents are summed into a
+ * single score per value of each issue.
+ *
+ * The scores are updated in place, unless the model is shared with other
+ * threads (see OpponentModelWorker), in which case they are published as a
+ * new array at each update and never modified afterwards, so they can be read
+ * while the model is being updated.
+ */
 public class OpponentModel {
 
-	private ArrayList<IssueDiscrete> issues;
-	private HashMap<IssueDiscrete, HashMap<ValueDiscrete, HashMap<AgentID, Double>>> opponentPrefs;
-	private HashMap<IssueDiscrete, HashMap<ValueDiscrete, HashMap<AgentID, Double>>> valuePrefs;
-	private HashMap<IssueDiscrete, HashMap<AgentID, Double>> issuePrefs;
-	
-	
-	public OpponentModel(ArrayList<IssueDiscrete> issues) {
-		
-		this.issues = issues;
-		opponentPrefs = new HashMap<IssueDiscrete, HashMap<ValueDiscrete, HashMap<AgentID, Double>>>();
-		valuePrefs = new HashMap<IssueDiscrete, HashMap<ValueDiscrete, HashMap<AgentID, Double>>>();
-		issuePrefs = new HashMap<IssueDiscrete, HashMap<AgentID, Double>>();
-		
-		for(IssueDiscrete i : issues)
+	private DomainIndex domainIndex;
+	private HashMap<AgentID, Integer> agentIndices;
+	private AgentID[] agents;
+	private int agentCount;
+
+	// frequency of each value of each issue, per agent
+	private double[][][] frequencies;
+	// sum of the frequencies of the values of each issue, per agent
+	private double[][] valueSums;
+	// maximum frequency of the values of each issue, per agent
+	private double[][] issueMaxima;
+	// sum of the maxima over all issues, per agent
+	private double[] maximaSums;
+
+	// summed preferences of all agents for each value of each issue, as of the
+	// last call to updatePreferences
+	private volatile double[][] scores;
+	private boolean scoresOutdated;
+	// whether the scores are read from other threads than the updating one
+	private boolean shared;
+
+	private int[] bidValues;
+
+
+	public OpponentModel(DomainIndex domainIndex) {
+
+		this.domainIndex = domainIndex;
+		int issueCount = domainIndex.getIssueCount();
+		agentIndices = new HashMap<AgentID, Integer>();
+		agents = new AgentID[2];
+		frequencies = new double[2][][];
+		valueSums = new double[2][];
+		issueMaxima = new double[2][];
+		maximaSums = new double[2];
+
+		scores = new double[issueCount][];
+		for(int i = 0; i < issueCount; i++)
 		{
-			HashMap<ValueDiscrete, HashMap<AgentID, Double>> opponentMap = new HashMap<ValueDiscrete, HashMap<AgentID, Double>>();
-			HashMap<ValueDiscrete, HashMap<AgentID, Double>> valueMap = new HashMap<ValueDiscrete, HashMap<AgentID, Double>>(); 
-			for(ValueDiscrete v : i.getValues())
-			{
-				opponentMap.put(v, new HashMap<AgentID, Double>());
-				valueMap.put(v, new HashMap<AgentID, Double>());
-			}
-			opponentPrefs.put(i, opponentMap);
-			valuePrefs.put(i, valueMap);
-			issuePrefs.put(i, new HashMap<AgentID, Double>());
-		}	
-		
+			scores[i] = new double[domainIndex.getValueCount(i)];
+		}
+		bidValues = new int[issueCount];
+
 	}
-	
-	
+
+
 	public void updateFrequencies(Bid bid, AgentID agent, double frequencyWeight) {
-		for(IssueDiscrete i : issues)
+		updateFrequencies(domainIndex.toIndices(bid, bidValues), agent, frequencyWeight);
+	}
+
+
+	public void updateFrequencies(int[] values, AgentID agent, double frequencyWeight) {
+		int a = getAgentIndex(agent);
+		for(int i = 0; i < values.length; i++)
 		{
-			ValueDiscrete v = (ValueDiscrete)bid.getValue(i.getNumber());	
-			Double currentFrequency = opponentPrefs.get(i).get(v).get(agent);
-			Double newFrequency;
-			try {
-				newFrequency = new Double(currentFrequency.doubleValue() + frequencyWeight);
-				opponentPrefs.get(i).get(v).replace(agent, newFrequency);
-			} catch(NullPointerException npe) {
-				newFrequency = new Double(frequencyWeight);
-				opponentPrefs.get(i).get(v).put(agent, newFrequency);
+			double newFrequency = frequencies[a][i][values[i]] + frequencyWeight;
+			frequencies[a][i][values[i]] = newFrequency;
+			valueSums[a][i] += frequencyWeight;
+			if(newFrequency > issueMaxima[a][i])
+			{
+				maximaSums[a] += newFrequency - issueMaxima[a][i];
+				issueMaxima[a][i] = newFrequency;
 			}
 		}
+		scoresOutdated = true;
+	}
+
+
+	/**
+	 * From now on, publishes a new array of scores at each update instead of
+	 * updating them in place, so that other threads can read them.
+	 */
+	void share() {
+		shared = true;
 	}
-	
-	
+
+
 	public void updatePreferences() {
-		
-		HashMap<AgentID, Double> issueSumFreq = new HashMap<AgentID, Double>();
-		HashMap<IssueDiscrete, HashMap<AgentID, Double>> issueMaxFreq = new HashMap<IssueDiscrete, HashMap<AgentID, Double>>();
-		
-		for(IssueDiscrete i : issues)
+
+		if(!scoresOutdated)
+		{
+			return;
+		}
+
+		// when shared, build the new scores aside and publish them at once
+		double[][] updated = shared ? new double[scores.length][] : scores;
+		for(int i = 0; i < updated.length; i++)
 		{
-			issueMaxFreq.put(i, new HashMap<AgentID, Double>());
-			
-			// find sums and maximums
-			
-			HashMap<AgentID, Double> valueSumFreq = new HashMap<AgentID, Double>();
-			for(ValueDiscrete v : opponentPrefs.get(i).keySet())
+			if(shared)
 			{
-				for(AgentID a : opponentPrefs.get(i).get(v).keySet())
-				{
-					if(issueSumFreq.get(a) == null)
-					{
-						issueSumFreq.put(a, new Double(0)); // just for initializing purposes
-					}
-					Double currentFreq = valueSumFreq.get(a);
-					
-					if(currentFreq == null)
-					{
-						valueSumFreq.put(a, opponentPrefs.get(i).get(v).get(a));
-						issueMaxFreq.get(i).put(a, opponentPrefs.get(i).get(v).get(a));
-					}
-					else
-					{
-						valueSumFreq.replace(a, new Double(currentFreq + opponentPrefs.get(i).get(v).get(a)));
-						if(opponentPrefs.get(i).get(v).get(a).doubleValue() > issueMaxFreq.get(i).get(a).doubleValue())
-						{
-							issueMaxFreq.get(i).replace(a, opponentPrefs.get(i).get(v).get(a));
-						}
-					}
-					
-				}
+				updated[i] = new double[scores[i].length];
 			}
-			for(AgentID a : issueSumFreq.keySet())
+			else
 			{
-				issueSumFreq.replace(a, issueSumFreq.get(a) + issueMaxFreq.get(i).get(a));
+				Arrays.fill(updated[i], 0);
 			}
-			
-			
-			// normalize on values
-			
-			for(ValueDiscrete v : opponentPrefs.get(i).keySet())
+			for(int a = 0; a < agentCount; a++)
 			{
-				for(AgentID a : opponentPrefs.get(i).get(v).keySet())
+				double issuePref = getIssuePref(a, i);
+				for(int v = 0; v < updated[i].length; v++)
 				{
-					valuePrefs.get(i).get(v).put(a, new Double(0));
-					valuePrefs.get(i).get(v).replace(a, opponentPrefs.get(i).get(v).get(a) / valueSumFreq.get(a));
+					updated[i][v] += issuePref * frequencies[a][i][v] / valueSums[a][i];
 				}
 			}
-			
 		}
-		
-		// normalize on issues
-		
-		for(IssueDiscrete i : issues)
+		scores = updated;
+		scoresOutdated = false;
+
+	}
+
+
+	/**
+	 * @return The summed preference of all agents for a value of an issue, as of
+	 * the last call to updatePreferences.
+	 */
+	public double getScore(int issue, int value) {
+		return scores[issue][value];
+	}
+
+
+	/**
+	 * @return The scores of each value of each issue, indexed as in the
+	 * DomainIndex. The score of a bid is the sum of the scores of its values.
+	 * If the model is shared, the array is a snapshot which is never modified,
+	 * otherwise it is updated by the next call to updatePreferences.
+	 */
+	public double[][] getScores() {
+		return scores;
+	}
+
+
+	public double getScore(int[] values) {
+		double[][] snapshot = scores;
+		double score = 0;
+		for(int i = 0; i < values.length; i++)
 		{
-			for(AgentID a : issueSumFreq.keySet())
-			{
-				issuePrefs.get(i).put(a, new Double(0));
-				issuePrefs.get(i).replace(a, issueMaxFreq.get(i).get(a) / issueSumFreq.get(a));
-			}
+			score += snapshot[i][values[i]];
 		}
-			
+		return score;
 	}
 
 
-	public HashMap<IssueDiscrete, HashMap<ValueDiscrete, HashMap<AgentID, Double>>> getValuePrefs() {
-		return valuePrefs;
+	private double getValuePref(int agent, int issue, int value) {
+		return frequencies[agent][issue][value] / valueSums[agent][issue];
 	}
 
 
-	public HashMap<IssueDiscrete, HashMap<AgentID, Double>> getIssuePrefs() {
-		return issuePrefs;
+	private double getIssuePref(int agent, int issue) {
+		return issueMaxima[agent][issue] / maximaSums[agent];
 	}
-	
-	
+
+
+	private int getAgentIndex(AgentID agent) {
+		Integer index = agentIndices.get(agent);
+		if(index != null)
+		{
+			return index;
+		}
+		if(agentCount == agents.length)
+		{
+			int capacity = agents.length * 2;
+			agents = Arrays.copyOf(agents, capacity);
+			frequencies = Arrays.copyOf(frequencies, capacity);
+			valueSums = Arrays.copyOf(valueSums, capacity);
+			issueMaxima = Arrays.copyOf(issueMaxima, capacity);
+			maximaSums = Arrays.copyOf(maximaSums, capacity);
+		}
+		int issueCount = domainIndex.getIssueCount();
+		frequencies[agentCount] = new double[issueCount][];
+		for(int i = 0; i < issueCount; i++)
+		{
+			frequencies[agentCount][i] = new double[domainIndex.getValueCount(i)];
+		}
+		valueSums[agentCount] = new double[issueCount];
+		issueMaxima[agentCount] = new double[issueCount];
+		agents[agentCount] = agent;
+		agentIndices.put(agent, agentCount);
+		return agentCount++;
+	}
+
+
 	public void printIssuePreferences() {
 		System.out.println("Issue Preferences:");
-		for(IssueDiscrete i : issues)
+		for(int i = 0; i < domainIndex.getIssueCount(); i++)
 		{
-			System.out.printf("%15s : ", i.getName());
-			for(Entry<AgentID, Double> e : issuePrefs.get(i).entrySet())
+			System.out.printf("%15s : ", domainIndex.getDomain().getIssues().get(i).getName());
+			for(int a = 0; a < agentCount; a++)
 			{
-				System.out.printf("    %25s = %.3f    ", e.getKey(), e.getValue());
+				System.out.printf("    %25s = %.3f    ", agents[a], getIssuePref(a, i));
 			}
 			System.out.println();
 		}
-//		try {
-//			Thread.sleep(1000);
-//		} catch (InterruptedException e) {
-//			e.printStackTrace();
-//		}
 	}
-	
+
 	public void printValuePreferences() {
 		System.out.println("Value Preferences:");
-		for(IssueDiscrete i : issues)
+		for(int i = 0; i < domainIndex.getIssueCount(); i++)
 		{
-			System.out.printf("%15s : ", i.getName());
-			for(ValueDiscrete v : i.getValues())
+			System.out.printf("%15s : ", domainIndex.getDomain().getIssues().get(i).getName());
+			for(int v = 0; v < domainIndex.getValueCount(i); v++)
 			{
-				System.out.printf("    %15s : ", v.getValue());
-				for(Entry<AgentID, Double> e : valuePrefs.get(i).get(v).entrySet())
+				System.out.printf("    %15s : ", domainIndex.getValue(i, v).getValue());
+				for(int a = 0; a < agentCount; a++)
 				{
-					System.out.printf("    %25s = %.3f    ", e.getKey(), e.getValue());
+					System.out.printf("    %25s = %.3f    ", agents[a], getValuePref(a, i, v));
 				}
 				System.out.println();
 			}
 		}
-//		try {
-//			Thread.sleep(1000);
-//		} catch (InterruptedException e) {
-//			e.printStackTrace();
-//		}
 	}
 
 
@@ -5,73 +5,110 @@
  */
 package group9;
 
-import java.util.HashMap;
-import java.util.Map;
 import negotiator.Bid;
-import negotiator.issue.Value;
 
 /**
- * Opponent utility estimation model based on ABiNeS and AgentMR ideas.
+ * Opponent utility estimation model based on ABiNeS and AgentMR ideas. Items
+ * are identified by their indices in a DomainIndex.
  */
 public class OpponentModelTheo {
+    private final DomainIndex domainIndex;
     /**
      * Number of time each object of each issue have been proposed so far.
      */
-    private final Map<Integer, Map<Value, Integer>> itemCounts = new HashMap<>();
-    
+    private final int[][] itemCounts;
+
     /**
      * Estimated score of each object in each issue. ABiNeS opponent model is
      * used to this end.
      */
-    private final Map<Integer, Map<Value, Double>> itemScores = new HashMap<>();
+    private final double[][] itemScores;
+    /**
+     * Value indices of the last registered bid, reused to avoid allocations.
+     */
+    private final int[] bidValues;
     /**
      * Utility of our agent on the first bid proposed by the opponent.
      */
     private Double firstBidUtility = null;
-    
+
     private double scoreDecayFactor = 4;
-    
+
+    public OpponentModelTheo(DomainIndex domainIndex) {
+        this.domainIndex = domainIndex;
+        int issueCount = domainIndex.getIssueCount();
+        itemCounts = new int[issueCount][];
+        itemScores = new double[issueCount][];
+        for (int i = 0; i < issueCount; i++) {
+            int valueCount = domainIndex.getValueCount(i);
+            itemCounts[i] = new int[valueCount];
+            itemScores[i] = new double[valueCount];
+        }
+        bidValues = new int[issueCount];
+    }
+
     public void registerBid(Bid newBid, double ourUtility) {
+        registerBid(domainIndex.toIndices(newBid, bidValues), ourUtility);
+    }
+
+    /**
+     * Same as registerBid(Bid, double), for a bid given by its value indices.
+     */
+    public void registerBid(int[] values, double ourUtility) {
         if(firstBidUtility == null) {
             firstBidUtility = ourUtility;
         }
-        
+
         // This concession estimator is taken from AgentMR paper.
         double opponentConcession = (ourUtility - firstBidUtility) / (1 - firstBidUtility);
-        
-        HashMap<Integer, Value> issueValues = newBid.getValues();
-        
-        for (int issueNumber : issueValues.keySet()) {
-            itemCounts.putIfAbsent(issueNumber, new HashMap<>());
-            Map<Value, Integer> issueCounts = itemCounts.get(issueNumber);
-            itemScores.putIfAbsent(issueNumber, new HashMap<>());
-            Map<Value, Double> issueScores = itemScores.get(issueNumber);
-            Value value = issueValues.get(issueNumber);
-            
-            // Initiate the values if they are not already present
-            issueScores.putIfAbsent(value, 0.);
-            issueCounts.putIfAbsent(value, 0);
-            
-            // Calculate the new score as described in ABiNeS strategy.
-            double newItemScore = issueScores.get(value)
-                    + Math.pow(1 - opponentConcession, scoreDecayFactor * issueCounts.get(value));
-            
-            issueScores.put(value, newItemScore);
-            issueCounts.put(value, issueCounts.get(value) + 1);
+        // The term added for a value proposed count times before is decayBase^count
+        double decayBase = Math.pow(1 - opponentConcession, scoreDecayFactor);
+
+        for (int i = 0; i < values.length; i++) {
+            int value = values[i];
+
+            // Calculate the new score as described in ABiNeS strategy
+            itemScores[i][value] += Math.pow(decayBase, itemCounts[i][value]);
+            itemCounts[i][value]++;
         }
     }
-    
+
     /**
      * Computes the accumulated frequency as defined in the ABiNeS paper. This
      * gives a score which is not normalized, and is only intended to be
      * compared with other values of this function, in order to sort bids.
      */
     public double getEstimatedScore(Bid bid) {
+        return getEstimatedScore(domainIndex.toIndices(bid, new int[itemScores.length]), 0);
+    }
+
+    /**
+     * Same as getEstimatedScore(Bid), for a bid given by its value indices
+     * starting at the given offset of the array.
+     */
+    public double getEstimatedScore(int[] values, int offset) {
         double score = 0;
-        for(Map.Entry<Integer, Value> bidIssue : bid.getValues().entrySet()) {
-                score += itemScores.get(bidIssue.getKey()).getOrDefault(bidIssue.getValue(), 0.);
+        for (int i = 0; i < itemScores.length; i++) {
+            score += itemScores[i][values[offset + i]];
         }
         return score;
     }
 
+    /**
+     * Adds the estimated score of a batch of bids to the scores array.
+     * @param bids The bids to score.
+     * @param scores Array receiving the scores, at the same index as the bids.
+     */
+    public void scoreAll(CandidateBatch bids, double[] scores) {
+        bids.addScores(itemScores, scores);
+    }
+
+    /**
+     * @return The estimated score of a single value of an issue, such that the
+     * estimated score of a bid is the sum of the scores of its values.
+     */
+    public double getValueScore(int issue, int value) {
+        return itemScores[issue][value];
+    }
+
 }
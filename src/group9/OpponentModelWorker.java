@@ -0,0 +1,110 @@
+package group9;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import negotiator.AgentID;
+
+/**
+ * Updates an OpponentModel in a background thread. The thread receiving the
+ * messages only pushes the bids into a lock-free queue. The worker applies
+ * all the pending bids to the frequencies, then recomputes and publishes the
+ * scores, which the other threads read from the published snapshot without
+ * waiting. Once a model is given to a worker, only the worker may update it.
+ *
+ * The worker parks while the queue is empty, and is only unparked by the bid
+ * which makes the number of pending bids leave zero, so a busy worker costs
+ * the producer a single atomic increment per bid.
+ */
+public class OpponentModelWorker implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final OpponentModel model;
+    private final SpscQueue<Update> queue = new SpscQueue<>(QUEUE_CAPACITY);
+    /**
+     * Number of bids counted by the producer and not yet by the worker. It
+     * may briefly be negative, when the worker polls a bid before the
+     * producer counts it.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public OpponentModelWorker(OpponentModel model, String name) {
+        this.model = model;
+        model.share();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a bid for the model. Must only be called by one thread at a
+     * time. Only waits if the worker is QUEUE_CAPACITY bids behind.
+     * @param values Value indices of the bid, copied.
+     */
+    public void submit(int[] values, AgentID agent, double frequencyWeight) {
+        Update update = new Update(values.clone(), agent, frequencyWeight);
+        while (!queue.offer(update)) {
+            LockSupport.unpark(thread);
+            Thread.yield();
+        }
+        if (pending.getAndIncrement() == 0) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the worker once it has applied the bids still queued, and waits
+     * for it, so that the model includes every submitted bid afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            int count = 0;
+            Update update;
+            while ((update = queue.poll()) != null) {
+                model.updateFrequencies(update.values, update.agent, update.frequencyWeight);
+                count++;
+            }
+            if (count > 0) {
+                model.updatePreferences();
+            }
+            // Parks only once every counted bid was applied: a bid counted
+            // afterwards unparks the worker
+            if (pending.addAndGet(-count) == 0) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private static class Update {
+        final int[] values;
+        final AgentID agent;
+        final double frequencyWeight;
+
+        Update(int[] values, AgentID agent, double frequencyWeight) {
+            this.values = values;
+            this.agent = agent;
+            this.frequencyWeight = frequencyWeight;
+        }
+    }
+}
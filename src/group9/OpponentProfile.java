@@ -0,0 +1,119 @@
+package group9;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import negotiator.AgentID;
+
+/**
+ * What Agent9 remembers of an opponent on a domain from one session to the
+ * next: the statistics of our utility of its offers during the analysis
+ * phase, over all the sessions, and the pokemon chosen the last time.
+ * Profiles are kept in a ProfileStore, keyed by the class of the opponent and
+ * the content hash of the domain and our profile (see CompiledDomain), since
+ * our utility of its offers depends on both.
+ *
+ * The opponent models of the pokemons are not part of the profile: the
+ * profile of the opponent usually changes from one session to the next on a
+ * domain, so the preferences learnt in a session do not carry over, unlike
+ * the way it concedes.
+ */
+public class OpponentProfile {
+    private static final String KIND = "opponent";
+    private static final int FORMAT_VERSION = 1;
+    private static final int SIZE = 12 + 40;
+
+    private int sessions;
+    private final RunningStats offers;
+    /**
+     * Index of the pokemon chosen in the last session, or -1.
+     */
+    private int strategy = -1;
+
+    private OpponentProfile() {
+        offers = new RunningStats();
+    }
+
+    private OpponentProfile(int sessions, RunningStats offers, int strategy) {
+        this.sessions = sessions;
+        this.offers = offers;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return The name of the class of an agent, assuming ids of the form
+     * "Class@n" as given by Genius.
+     */
+    public static String getAgentClass(AgentID agent) {
+        String name = agent.getName();
+        int at = name.lastIndexOf('@');
+        return at < 0 ? name : name.substring(0, at);
+    }
+
+    /**
+     * @param domainHash Content hash of the domain and our profile.
+     */
+    public static long key(AgentID opponent, long domainHash) {
+        return ProfileStore.key(KIND, getAgentClass(opponent), domainHash);
+    }
+
+    /**
+     * @return The profile of the opponent on the domain, or null if there is
+     * none in the store.
+     */
+    public static OpponentProfile load(ProfileStore store, AgentID opponent, long domainHash) {
+        return decode(store.read(key(opponent, domainHash)));
+    }
+
+    /**
+     * Adds the outcome of a session to the profile of the opponent in the
+     * store, atomically.
+     * @param sessionOffers Statistics of the offers of the opponent during the
+     * analysis phase of the session.
+     * @param chosen Index of the pokemon chosen in the session, or -1.
+     */
+    public static void addSession(ProfileStore store, AgentID opponent, long domainHash,
+            RunningStats sessionOffers, int chosen) throws IOException {
+        store.update(key(opponent, domainHash), previous -> {
+            OpponentProfile profile = decode(previous);
+            if (profile == null) {
+                profile = new OpponentProfile();
+            }
+            profile.sessions++;
+            profile.offers.merge(sessionOffers);
+            if (chosen >= 0) {
+                profile.strategy = chosen;
+            }
+            return profile.encode();
+        });
+    }
+
+    private static OpponentProfile decode(ByteBuffer data) {
+        if (data == null || data.remaining() != SIZE || data.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        int sessions = data.getInt();
+        int strategy = data.getInt();
+        RunningStats offers = RunningStats.read(data);
+        return new OpponentProfile(sessions, offers, strategy);
+    }
+
+    private ByteBuffer encode() {
+        ByteBuffer data = ByteBuffer.allocate(SIZE);
+        data.putInt(FORMAT_VERSION).putInt(sessions).putInt(strategy);
+        offers.write(data);
+        data.flip();
+        return data;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public RunningStats getOffers() {
+        return offers;
+    }
+
+    public int getStrategy() {
+        return strategy;
+    }
+}
@@ -0,0 +1,23 @@
+package group9;
+
+/**
+ * Prediction of the utility of bids for an opponent, or for a group of
+ * opponents, as used by the ParetoArchive.
+ */
+public interface OpponentUtilityModel {
+    /**
+     * @return A number which changes each time the predicted utilities change.
+     */
+    long GetVersion();
+
+    /**
+     * @return The predicted utility of a bid given by its value indices.
+     */
+    float GetPredictedUtility(int[] bidValues);
+
+    /**
+     * Same as GetPredictedUtility(int[]), for every bid of a batch at once.
+     * @param utilities Array receiving the predicted utilities, at the index of the bids.
+     */
+    void GetPredictedUtilities(CandidateBatch bids, float[] utilities);
+}
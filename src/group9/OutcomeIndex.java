@@ -0,0 +1,155 @@
+package group9;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Every bid of a domain, sorted by decreasing utility for us. Bids are stored
+ * as their mixed-radix key (see DomainIndex), so that the set of bids having
+ * a utility above a threshold is a prefix of the index, found with a binary
+ * search. Only meant for domains of at most a few million outcomes. The
+ * tables are held in buffers, so that an index compiled earlier can be used
+ * directly from a memory-mapped file (see CompiledDomain).
+ */
+public class OutcomeIndex {
+    /**
+     * Largest number of outcomes we accept to index. This costs 12 bytes per
+     * outcome.
+     */
+    public static final int MAX_OUTCOMES = 1 << 22;
+
+    private final DomainIndex domainIndex;
+    /**
+     * Keys of all the bids, by decreasing utility.
+     */
+    private final IntBuffer keys;
+    /**
+     * Utility of the bid at the same rank in keys.
+     */
+    private final DoubleBuffer utilities;
+
+    public OutcomeIndex(DomainIndex domainIndex) {
+        if (!fits(domainIndex)) {
+            throw new IllegalArgumentException("Domain too large to be indexed: "
+                    + domainIndex.getOutcomeCount() + " outcomes");
+        }
+        this.domainIndex = domainIndex;
+        int size = (int) domainIndex.getOutcomeCount();
+        int[] keys = new int[size];
+        double[] utilities = new double[size];
+
+        // Enumerate the bids in key order, incrementing the indices like an odometer
+        int issueCount = domainIndex.getIssueCount();
+        int[] indices = new int[issueCount];
+        for (int key = 0; key < size; key++) {
+            keys[key] = key;
+            utilities[key] = domainIndex.getUtility(indices);
+            for (int i = 0; i < issueCount; i++) {
+                if (++indices[i] < domainIndex.getValueCount(i)) {
+                    break;
+                }
+                indices[i] = 0;
+            }
+        }
+        sort(keys, utilities, 0, size - 1);
+        this.keys = IntBuffer.wrap(keys);
+        this.utilities = DoubleBuffer.wrap(utilities);
+    }
+
+    /**
+     * Index made of tables computed earlier by the constructor above.
+     */
+    OutcomeIndex(DomainIndex domainIndex, IntBuffer keys, DoubleBuffer utilities) {
+        this.domainIndex = domainIndex;
+        this.keys = keys;
+        this.utilities = utilities;
+    }
+
+    /**
+     * @return Whether the given domain is small enough to be indexed.
+     */
+    public static boolean fits(DomainIndex domainIndex) {
+        return domainIndex.hasUtilities() && domainIndex.canEncode()
+                && domainIndex.getOutcomeCount() <= MAX_OUTCOMES;
+    }
+
+    public DomainIndex getDomainIndex() {
+        return domainIndex;
+    }
+
+    public int size() {
+        return keys.limit();
+    }
+
+    /**
+     * @return The number of bids having a utility greater or equal to the
+     * threshold. These are the bids of rank 0 to this number, excluded.
+     */
+    public int countAtLeast(double threshold) {
+        int low = 0, high = keys.limit();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (utilities.get(mid) >= threshold) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The key of the bid at the given rank, rank 0 being our best bid.
+     */
+    public int getKey(int rank) {
+        return keys.get(rank);
+    }
+
+    public double getUtility(int rank) {
+        return utilities.get(rank);
+    }
+
+    /**
+     * Quicksort of the keys by decreasing utility, keeping both arrays
+     * aligned.
+     */
+    private static void sort(int[] keys, double[] utilities, int low, int high) {
+        while (high - low > 16) {
+            double pivot = utilities[(low + high) >>> 1];
+            int i = low, j = high;
+            while (i <= j) {
+                while (utilities[i] > pivot) {
+                    i++;
+                }
+                while (utilities[j] < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, utilities, i++, j--);
+                }
+            }
+            // Recurse on the smallest part to bound the stack depth
+            if (j - low < high - i) {
+                sort(keys, utilities, low, j);
+                low = i;
+            } else {
+                sort(keys, utilities, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && utilities[j - 1] < utilities[j]; j--) {
+                swap(keys, utilities, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(int[] keys, double[] utilities, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        double utility = utilities[i];
+        utilities[i] = utilities[j];
+        utilities[j] = utility;
+    }
+}
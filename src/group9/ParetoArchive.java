@@ -0,0 +1,416 @@
+package group9;
+
+import java.util.Arrays;
+import negotiator.Bid;
+
+/**
+ * Archive of the candidate bids discovered so far, with the Pareto frontier of
+ * our utility and the utilities predicted by some models of the opponents.
+ * Each model is one dimension of the frontier. The pool is kept sorted by decreasing utility
+ * for us, which never changes. Since a bid can only be dominated by bids we
+ * value at least as much, the frontier above a threshold only depends on the
+ * bids above it: the frontier is built lazily, from the top of the pool down
+ * to the lowest threshold queried so far. New bids falling in that part are
+ * inserted in the frontier directly. When a model changes, the predicted
+ * utilities of the whole pool are recomputed in one batch and the frontier is
+ * rebuilt at the next query.
+ *
+ * The pool has a bounded capacity. When it is full, a quarter of it is
+ * evicted: first the bids below the threshold of the last query, from the
+ * lowest utility for us up, then the bids above it which are dominated, in
+ * the same order. The bids of the frontier are never evicted; if they fill
+ * the pool, new bids are ignored.
+ */
+public class ParetoArchive {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final DomainIndex domainIndex;
+    private final OpponentUtilityModel[] models;
+    private final int capacity;
+
+    /**
+     * The bids of the pool, in order of discovery, and their fingerprints.
+     */
+    private final CandidateBatch pool;
+    private final LongHashSet fingerprints = new LongHashSet();
+    private final double[] ourUtilities;
+    /**
+     * Predicted utility of the bids of the pool, per model.
+     */
+    private final float[][] opponentUtilities;
+    /**
+     * Bids of the pool, by decreasing utility for us.
+     */
+    private final int[] order;
+    private int ordered;
+    /**
+     * Buffer of the bids added by the last addAll, and of the new position of
+     * the bids during an eviction.
+     */
+    private final int[] scratch;
+
+    /**
+     * Versions of the models the predicted utilities were computed with.
+     */
+    private final long[] versions;
+    /**
+     * Bids of the frontier, among those of utility at least
+     * frontierThreshold.
+     */
+    private int[] frontier = new int[16];
+    private int frontierSize;
+    private double frontierThreshold = Double.POSITIVE_INFINITY;
+    /**
+     * Threshold of the last query, below which bids are evicted first.
+     */
+    private double queryThreshold = Double.POSITIVE_INFINITY;
+
+    private final int[] bidValues;
+
+    public ParetoArchive(DomainIndex domainIndex, OpponentUtilityModel[] models) {
+        this(domainIndex, models, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of bids in the pool, at least 4.
+     */
+    public ParetoArchive(DomainIndex domainIndex, OpponentUtilityModel[] models, int capacity) {
+        this.domainIndex = domainIndex;
+        this.models = models.clone();
+        this.capacity = capacity;
+        pool = new CandidateBatch(domainIndex);
+        ourUtilities = new double[capacity];
+        opponentUtilities = new float[models.length][capacity];
+        order = new int[capacity];
+        scratch = new int[capacity];
+        versions = new long[models.length];
+        for (int m = 0; m < models.length; m++) {
+            versions[m] = models[m].GetVersion();
+        }
+        bidValues = new int[domainIndex.getIssueCount()];
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    /**
+     * Adds the bids of a batch not already in the pool, evicting bids when it
+     * is full.
+     */
+    public void addAll(CandidateBatch bids) {
+        boolean current = isCurrent();
+        int first = pool.size();
+        for (int c = 0; c < bids.size(); c++) {
+            int[] values = bids.getValues(c, bidValues);
+            long fingerprint = domainIndex.fingerprint(values);
+            if (fingerprints.contains(fingerprint)) {
+                continue;
+            }
+            if (pool.size() == capacity) {
+                sortNew(first);
+                evict();
+                first = pool.size();
+                current = isCurrent();
+                if (pool.size() == capacity) {
+                    break;
+                }
+            }
+            fingerprints.add(fingerprint);
+            int index = pool.add(values);
+            ourUtilities[index] = domainIndex.getUtility(values);
+            if (current) {
+                for (int m = 0; m < models.length; m++) {
+                    opponentUtilities[m][index] = models[m].GetPredictedUtility(values);
+                }
+                if (ourUtilities[index] >= frontierThreshold) {
+                    insert(index);
+                }
+            }
+        }
+        if (pool.size() > first) {
+            sortNew(first);
+        }
+    }
+
+    /**
+     * Writes into the given array the bids of the frontier we value at least
+     * the threshold, by decreasing utility for us.
+     * @return The number of bids written, or the size the array should have
+     * if it is too small.
+     */
+    public int getFrontier(double threshold, int[] result) {
+        queryThreshold = threshold;
+        if (!isCurrent()) {
+            rescore();
+        }
+        if (threshold < frontierThreshold) {
+            extend(threshold);
+        }
+        int count = 0;
+        for (int f = 0; f < frontierSize; f++) {
+            if (ourUtilities[frontier[f]] >= threshold) {
+                if (count < result.length) {
+                    result[count] = frontier[f];
+                }
+                count++;
+            }
+        }
+        if (count <= result.length) {
+            sortByUtility(result, 0, count - 1);
+        }
+        return count;
+    }
+
+    /**
+     * Writes into the given array all the bids of the pool we value at least
+     * the threshold, by decreasing utility for us.
+     * @return The number of bids written, or the size the array should have
+     * if it is too small.
+     */
+    public int getBidsAbove(double threshold, int[] result) {
+        queryThreshold = threshold;
+        int count = search(threshold);
+        if (count <= result.length) {
+            System.arraycopy(order, 0, result, 0, count);
+        }
+        return count;
+    }
+
+    public double getOurUtility(int bid) {
+        return ourUtilities[bid];
+    }
+
+    /**
+     * @return The utility of a bid of the pool predicted by the model at the
+     * given position in the array given to the constructor.
+     */
+    public float getOpponentUtility(int model, int bid) {
+        return opponentUtilities[model][bid];
+    }
+
+    public Bid toBid(int bid) {
+        return pool.toBid(bid);
+    }
+
+    /**
+     * @return The value indices of a bid of the pool, in the given array.
+     */
+    public int[] getValues(int bid, int[] values) {
+        return pool.getValues(bid, values);
+    }
+
+    private boolean isCurrent() {
+        for (int m = 0; m < models.length; m++) {
+            if (models[m].GetVersion() != versions[m]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rescore() {
+        for (int m = 0; m < models.length; m++) {
+            models[m].GetPredictedUtilities(pool, opponentUtilities[m]);
+            versions[m] = models[m].GetVersion();
+        }
+        frontierSize = 0;
+        frontierThreshold = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Adds to the frontier the bids of utility in [threshold,
+     * frontierThreshold), in decreasing utility.
+     */
+    private void extend(double threshold) {
+        int position = search(frontierThreshold);
+        while (position < ordered && ourUtilities[order[position]] >= threshold) {
+            insert(order[position]);
+            position++;
+        }
+        frontierThreshold = threshold;
+    }
+
+    /**
+     * Inserts a bid in the frontier if no bid of the frontier dominates it,
+     * removing the bids it dominates.
+     */
+    private void insert(int bid) {
+        for (int f = 0; f < frontierSize; f++) {
+            if (dominates(frontier[f], bid)) {
+                return;
+            }
+        }
+        int kept = 0;
+        for (int f = 0; f < frontierSize; f++) {
+            if (!dominates(bid, frontier[f])) {
+                frontier[kept++] = frontier[f];
+            }
+        }
+        if (kept == frontier.length) {
+            frontier = Arrays.copyOf(frontier, kept * 2);
+        }
+        frontier[kept++] = bid;
+        frontierSize = kept;
+    }
+
+    private boolean dominates(int a, int b) {
+        if (ourUtilities[a] < ourUtilities[b]) {
+            return false;
+        }
+        boolean better = ourUtilities[a] > ourUtilities[b];
+        for (int m = 0; m < models.length; m++) {
+            float utilityA = opponentUtilities[m][a];
+            float utilityB = opponentUtilities[m][b];
+            if (utilityA < utilityB) {
+                return false;
+            }
+            better |= utilityA > utilityB;
+        }
+        return better;
+    }
+
+    /**
+     * @return The first position in the order of a bid of utility lower than
+     * the given one.
+     */
+    private int search(double utility) {
+        int low = 0, high = ordered;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ourUtilities[order[mid]] >= utility) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Merges the bids of the pool from first on into the order, from the end
+     * so that no other buffer than scratch is needed.
+     */
+    private void sortNew(int first) {
+        int added = pool.size() - first;
+        for (int b = 0; b < added; b++) {
+            scratch[b] = first + b;
+        }
+        sortByUtility(scratch, 0, added - 1);
+
+        int i = ordered - 1, j = added - 1, k = ordered + added - 1;
+        while (j >= 0) {
+            if (i >= 0 && ourUtilities[order[i]] < ourUtilities[scratch[j]]) {
+                order[k--] = order[i--];
+            } else {
+                order[k--] = scratch[j--];
+            }
+        }
+        ordered += added;
+    }
+
+    /**
+     * Removes a quarter of the pool, as described in the class comment, and
+     * compacts it. The order must be up to date.
+     */
+    private void evict() {
+        if (!isCurrent()) {
+            rescore();
+        }
+        if (queryThreshold < frontierThreshold) {
+            extend(queryThreshold);
+        }
+        // scratch[b] is 1 for the bids of the frontier and -1 for the evicted
+        // bids, then the new position of the kept bids
+        int size = pool.size();
+        Arrays.fill(scratch, 0, size, 0);
+        for (int f = 0; f < frontierSize; f++) {
+            scratch[frontier[f]] = 1;
+        }
+        int toEvict = Math.max(1, size / 4);
+        int evicted = 0;
+        int aboveThreshold = search(queryThreshold);
+        // Below the threshold first, then the dominated bids above it
+        for (int pass = 0; pass < 2; pass++) {
+            int from = pass == 0 ? ordered - 1 : aboveThreshold - 1;
+            int to = pass == 0 ? aboveThreshold : 0;
+            for (int position = from; position >= to && evicted < toEvict; position--) {
+                if (scratch[order[position]] == 0) {
+                    scratch[order[position]] = -1;
+                    evicted++;
+                }
+            }
+        }
+        if (evicted == 0) {
+            return;
+        }
+
+        fingerprints.clear();
+        int kept = 0;
+        for (int b = 0; b < size; b++) {
+            if (scratch[b] < 0) {
+                continue;
+            }
+            pool.move(b, kept);
+            ourUtilities[kept] = ourUtilities[b];
+            for (int m = 0; m < models.length; m++) {
+                opponentUtilities[m][kept] = opponentUtilities[m][b];
+            }
+            fingerprints.add(domainIndex.fingerprint(pool.getValues(kept, bidValues)));
+            scratch[b] = kept++;
+        }
+        pool.truncate(kept);
+
+        int position = 0;
+        for (int p = 0; p < ordered; p++) {
+            if (scratch[order[p]] >= 0) {
+                order[position++] = scratch[order[p]];
+            }
+        }
+        ordered = position;
+        for (int f = 0; f < frontierSize; f++) {
+            frontier[f] = scratch[frontier[f]];
+        }
+    }
+
+    /**
+     * Quicksort of bids of the pool by decreasing utility for us, between low
+     * and high included.
+     */
+    private void sortByUtility(int[] bids, int low, int high) {
+        while (high - low > 16) {
+            double pivot = ourUtilities[bids[(low + high) >>> 1]];
+            int i = low, j = high;
+            while (i <= j) {
+                while (ourUtilities[bids[i]] > pivot) {
+                    i++;
+                }
+                while (ourUtilities[bids[j]] < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int bid = bids[i];
+                    bids[i++] = bids[j];
+                    bids[j--] = bid;
+                }
+            }
+            // Recurse on the smallest part to bound the stack depth
+            if (j - low < high - i) {
+                sortByUtility(bids, low, j);
+                low = i;
+            } else {
+                sortByUtility(bids, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int bid = bids[i];
+            int j = i;
+            while (j > low && ourUtilities[bids[j - 1]] < ourUtilities[bid]) {
+                bids[j] = bids[j - 1];
+                j--;
+            }
+            bids[j] = bid;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package group9;
+
+/**
+ * Orders the bids among the last actions of an opponent, kept in an ActionLog,
+ * by their utility predicted by an AccumulatedFrequency model. The window
+ * refers to the bids by their slot in the log. While the model does not
+ * change, adding a bid costs a binary search in the order. When the model
+ * changes, the whole window is rescored once, at the next query.
+ */
+public class PredictedUtilityWindow {
+    private final AccumulatedFrequency _model;
+    private final ActionLog _log;
+    private final int _issueCount;
+
+    /**
+     * Predicted utility of the bid in each slot of the log.
+     */
+    private final float[] _utilities;
+
+    /**
+     * Whether each slot of the log is in the order.
+     */
+    private final boolean[] _members;
+
+    /**
+     * Occupied slots, by increasing predicted utility when not dirty.
+     */
+    private final int[] _order;
+
+    private int _size;
+
+    /**
+     * Model version the utilities were computed with.
+     */
+    private long _scoredVersion;
+    private boolean _dirty;
+
+    public PredictedUtilityWindow(AccumulatedFrequency model, ActionLog log) {
+        _model = model;
+        _log = log;
+        _issueCount = model.GetDomainIndex().getIssueCount();
+        _utilities = new float[log.getCapacity()];
+        _members = new boolean[log.getCapacity()];
+        _order = new int[log.getCapacity()];
+        _scoredVersion = model.GetVersion();
+    }
+
+    public int Size() {
+        return _size;
+    }
+
+    /**
+     * Takes the last action added to the log into account: its bid, if any,
+     * enters the window, and the bid of the action it replaced in the log
+     * leaves it. Must be called after each action added to the log.
+     */
+    public void ActionAdded() {
+        int slot = _log.getSlot(0);
+
+        if(_model.GetVersion() != _scoredVersion)
+            _dirty = true;
+
+        if(_members[slot]) {
+            Remove(slot);
+            _members[slot] = false;
+        }
+
+        if(!_log.hasBid(slot))
+            return;
+
+        _members[slot] = true;
+
+        if(_dirty) {
+            // The order will be rebuilt anyway
+            _order[_size++] = slot;
+            return;
+        }
+
+        _utilities[slot] = Score(slot);
+        int position = Search(_utilities[slot]);
+        System.arraycopy(_order, position, _order, position + 1, _size - position);
+        _order[position] = slot;
+        _size += 1;
+    }
+
+    /**
+     * @return The average predicted utility of the count lowest bids of the
+     * window, or 0 if it is empty.
+     */
+    public float GetLowestAverage(int count) {
+        if(_dirty || _model.GetVersion() != _scoredVersion)
+            Rescore();
+
+        int n = Math.min(count, _size);
+
+        if(n == 0)
+            return 0;
+
+        float sum = 0;
+
+        for(int i = 0; i < n; i++) {
+            sum += _utilities[_order[i]];
+        }
+
+        return sum / n;
+    }
+
+    private void Remove(int slot) {
+        int position = 0;
+
+        if(!_dirty) {
+            // Start from the first slot having the same utility
+            position = Search(_utilities[slot] - Math.ulp(_utilities[slot]));
+        }
+
+        while(_order[position] != slot) {
+            position++;
+        }
+
+        System.arraycopy(_order, position + 1, _order, position, _size - position - 1);
+        _size -= 1;
+    }
+
+    /**
+     * @return The position of the first slot in the order having a utility
+     * greater than the given one.
+     */
+    private int Search(float utility) {
+        int low = 0, high = _size;
+
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+
+            if(_utilities[_order[mid]] <= utility)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private void Rescore() {
+        for(int i = 0; i < _size; i++) {
+            _utilities[_order[i]] = Score(_order[i]);
+        }
+
+        // Insertion sort, the previous order is usually almost right
+        for(int i = 1; i < _size; i++) {
+            int slot = _order[i];
+            int j = i;
+
+            while(j > 0 && _utilities[_order[j - 1]] > _utilities[slot]) {
+                _order[j] = _order[j - 1];
+                j--;
+            }
+
+            _order[j] = slot;
+        }
+
+        _scoredVersion = _model.GetVersion();
+        _dirty = false;
+    }
+
+    private float Score(int slot) {
+        return _model.GetPredictedUtility(_log.getValues(), slot * _issueCount);
+    }
+}
@@ -0,0 +1,244 @@
+package group9;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Local key-value store of records surviving from session to session, shared
+ * by all the sessions running on the machine. The file starts with a fixed
+ * table of slots, followed by an append-only data region. A slot holds a key,
+ * the position, length and CRC of the last record written for it, and the CRC
+ * of the slot itself. The file is memory-mapped, so that reading a record
+ * costs a probe in the table.
+ *
+ * Writers take an exclusive lock on the file, append the record, force it to
+ * disk, and only then update the slot. A crash thus leaves either the old
+ * record, or a slot or record whose CRC does not match, which reads as
+ * missing. Records replaced by newer ones are not reclaimed.
+ */
+public class ProfileStore implements AutoCloseable {
+    private static final int MAGIC = 0x47395053;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_COUNT = 4096;
+    private static final int SLOT_SIZE = 32;
+    private static final int DATA_START = HEADER_SIZE + SLOT_COUNT * SLOT_SIZE;
+    /**
+     * Key marking the unused slots.
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * Path of the store used by the agents, or an empty string to disable it.
+     */
+    public static final String PATH = System.getProperty("group9.profiles", "group9-profiles.dat");
+
+    /**
+     * Serialises the writers of this JVM, since file locks are only held per
+     * process, and the closing of the stores.
+     */
+    private static final Object WRITE_LOCK = new Object();
+
+    private final FileChannel channel;
+    private MappedByteBuffer mapped;
+
+    public ProfileStore(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        synchronized (WRITE_LOCK) {
+            try (FileLock lock = channel.lock()) {
+                if (channel.size() < DATA_START) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(SLOT_COUNT).putInt(SLOT_SIZE).flip();
+                    channel.write(header, 0);
+                    // The slots are zero, hence empty
+                    channel.write(ByteBuffer.allocate(1), DATA_START - 1);
+                    channel.force(true);
+                }
+            }
+        }
+        map();
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION
+                || mapped.getInt(8) != SLOT_COUNT || mapped.getInt(12) != SLOT_SIZE) {
+            channel.close();
+            throw new IOException("Not a profile store: " + path);
+        }
+    }
+
+    /**
+     * @return The store at PATH, or null if it is disabled or cannot be
+     * opened.
+     */
+    public static ProfileStore openDefault() {
+        if (PATH.isEmpty()) {
+            return null;
+        }
+        try {
+            return new ProfileStore(Paths.get(PATH));
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return A read-only view of the last record written for the key, or null
+     * if there is none or it is corrupted.
+     */
+    public synchronized ByteBuffer read(long key) {
+        return readRecord(key);
+    }
+
+    /**
+     * Appends a record for the key, replacing the previous one.
+     * @throws IOException If the file cannot be written or the table is full.
+     */
+    public void write(long key, ByteBuffer data) throws IOException {
+        update(key, previous -> data);
+    }
+
+    /**
+     * Replaces the record of the key by a function of the current one, while
+     * holding the lock, so that concurrent updates are not lost.
+     * @param update Gives the new record from the current one, or from null
+     * if there is none.
+     * @throws IOException If the file cannot be written or the table is full.
+     */
+    public void update(long key, UnaryOperator<ByteBuffer> update) throws IOException {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Reserved key");
+        }
+        synchronized (WRITE_LOCK) {
+            try (FileLock lock = channel.lock()) {
+                map();
+                ByteBuffer data;
+                synchronized (this) {
+                    data = update.apply(readRecord(key));
+                }
+                appendRecord(key, data);
+            }
+        }
+    }
+
+    /**
+     * Closing a channel releases the locks of the whole process on the file,
+     * so it must not happen while another store of this JVM holds the lock.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (WRITE_LOCK) {
+            channel.close();
+        }
+    }
+
+    private ByteBuffer readRecord(long key) {
+        int slot = findSlot(key);
+        if (slot < 0 || mapped.getLong(slotPosition(slot)) != key) {
+            return null;
+        }
+        int position = slotPosition(slot);
+        long offset = mapped.getLong(position + 8);
+        int length = mapped.getInt(position + 16);
+        int dataCrc = mapped.getInt(position + 20);
+        if (mapped.getInt(position + 24) != slotCrc(key, offset, length, dataCrc)) {
+            return null;
+        }
+        try {
+            if (offset + length > mapped.capacity()) {
+                map();
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        if (offset < DATA_START || offset + length > mapped.capacity()) {
+            return null;
+        }
+        ByteBuffer data = mapped.duplicate();
+        data.position((int) offset);
+        data.limit((int) offset + length);
+        data = data.slice().asReadOnlyBuffer();
+        if (crc(data.duplicate()) != dataCrc) {
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Appends the data and points the slot of the key to it. Must be called
+     * with the file locked.
+     */
+    private void appendRecord(long key, ByteBuffer data) throws IOException {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            throw new IOException("Profile store full");
+        }
+        int length = data.remaining();
+        int dataCrc = crc(data.duplicate());
+        long offset = channel.size();
+        while (data.hasRemaining()) {
+            channel.write(data, offset + length - data.remaining());
+        }
+        channel.force(false);
+
+        ByteBuffer entry = ByteBuffer.allocate(SLOT_SIZE);
+        entry.putLong(key).putLong(offset).putInt(length).putInt(dataCrc)
+                .putInt(slotCrc(key, offset, length, dataCrc)).flip();
+        channel.write(entry, slotPosition(slot));
+        channel.force(false);
+    }
+
+    /**
+     * @return A 64-bit key for a pair of strings and a number.
+     */
+    public static long key(String kind, String name, long hash) {
+        long key = 0xCBF29CE484222325L;
+        for (char c : (kind + '\0' + name).toCharArray()) {
+            key = (key ^ c) * 0x100000001B3L;
+        }
+        key = (key ^ hash) * 0x100000001B3L;
+        return key == EMPTY ? 1 : key;
+    }
+
+    private synchronized void map() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * @return The slot holding the key, or the empty slot where it would be
+     * inserted, or -1 if the table is full.
+     */
+    private int findSlot(long key) {
+        int slot = LongHashSet.hash(key) & (SLOT_COUNT - 1);
+        for (int probe = 0; probe < SLOT_COUNT; probe++) {
+            long slotKey = mapped.getLong(slotPosition(slot));
+            if (slotKey == key || slotKey == EMPTY) {
+                return slot;
+            }
+            slot = (slot + 1) & (SLOT_COUNT - 1);
+        }
+        return -1;
+    }
+
+    private static int slotPosition(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int slotCrc(long key, long offset, int length, int dataCrc) {
+        ByteBuffer fields = ByteBuffer.allocate(24);
+        fields.putLong(key).putLong(offset).putInt(length).putInt(dataCrc).flip();
+        return crc(fields);
+    }
+
+    private static int crc(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,88 @@
+package group9;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Running count, mean, variance, minimum and maximum of a series of values,
+ * updated in constant memory with Welford's algorithm.
+ */
+public class RunningStats {
+    private long count;
+    private double mean;
+    /**
+     * Sum of the squared differences to the current mean.
+     */
+    private double squaredDeviations;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all the values accumulated by another instance to this one, as if
+     * they had been added one by one.
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return The population variance of the values.
+     */
+    public double getVariance() {
+        return count == 0 ? Double.NaN : squaredDeviations / count;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Writes the state of the statistics, to be read back by read().
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putLong(count).putDouble(mean).putDouble(squaredDeviations).putDouble(min).putDouble(max);
+    }
+
+    public static RunningStats read(ByteBuffer buffer) {
+        RunningStats stats = new RunningStats();
+        stats.count = buffer.getLong();
+        stats.mean = buffer.getDouble();
+        stats.squaredDeviations = buffer.getDouble();
+        stats.min = buffer.getDouble();
+        stats.max = buffer.getDouble();
+        return stats;
+    }
+}
@@ -0,0 +1,90 @@
+package group9;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Result of a task run in a background thread, between two turns of a party,
+ * for the utility threshold predicted for its next turn. The party starts the
+ * task right after acting, and takes the result at its next turn if the task
+ * is done and the actual threshold is close enough to the predicted one.
+ * Taking the result never waits: a task still running is cancelled, and the
+ * party computes the result itself.
+ *
+ * The task runs while the party receives messages, so it must only read data
+ * the party does not modify, such as copies taken when starting it, and its
+ * own buffers. Tasks run one at a time in the same thread, so a task may reuse
+ * the buffers of the previous one. A task is cancelled by interrupting its
+ * thread, so a long task must check the interrupt flag of its thread and stop
+ * early once it is set.
+ */
+public class Speculation<T> implements AutoCloseable {
+    /**
+     * Whether the parties precompute their next offer between their turns.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("group9.pipelined");
+
+    private final ExecutorService executor;
+    private Future<T> pending;
+    private double predictedThreshold;
+
+    public Speculation(String name) {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a task, cancelling the previous one if it was not taken.
+     */
+    public void start(double predictedThreshold, Callable<T> task) {
+        cancel();
+        this.predictedThreshold = predictedThreshold;
+        pending = executor.submit(task);
+    }
+
+    /**
+     * @param tolerance Largest difference between the actual and the predicted
+     * threshold for the result to be used.
+     * @return The result of the last task started, or null if there is none,
+     * it is not done, it failed, or it was computed for another threshold.
+     */
+    public T take(double threshold, double tolerance) {
+        Future<T> task = pending;
+        pending = null;
+        if (task == null) {
+            return null;
+        }
+        if (!task.isDone() || Math.abs(threshold - predictedThreshold) > tolerance) {
+            task.cancel(true);
+            return null;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException ex) {
+            // Computed again by the party
+        }
+        return null;
+    }
+
+    public void cancel() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package group9;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for one producer thread and one consumer thread.
+ * Each side only writes its own counter, and publishes it with an ordered
+ * write, so that neither side ever waits on the other. The element written
+ * into a slot is visible to the consumer once it sees the new tail.
+ */
+public class SpscQueue<E> {
+    private final Object[] buffer;
+    private final int mask;
+    /**
+     * Number of elements polled so far, only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Number of elements offered so far, only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity Rounded up to a power of two.
+     */
+    public SpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an element. Must only be called by the producer.
+     * @return false if the queue is full, in which case it is unchanged.
+     */
+    public boolean offer(E element) {
+        long t = tail.get();
+        if (t - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) t & mask] = element;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer.
+     * @return The element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int slot = (int) h & mask;
+        E element = (E) buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
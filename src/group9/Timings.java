@@ -0,0 +1,82 @@
+package group9;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Latency histograms of the methods and phases of a party, for one session.
+ * Timing is only done when the JVM is started with -Dgroup9.timings=true, and
+ * costs nothing otherwise. At the end of the session, the histograms are
+ * appended to the file given by -Dgroup9.timings.file (timings.log by
+ * default), one line per histogram, as "owner;name;histogram". The file is
+ * locked while appending, so that parallel sessions can share it.
+ */
+public class Timings {
+    public static final boolean ENABLED = Boolean.getBoolean("group9.timings");
+    private static final String FILE = System.getProperty("group9.timings.file", "timings.log");
+
+    private final String owner;
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+
+    /**
+     * @param owner Name of the party, written in front of each histogram.
+     */
+    public Timings(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return The start time to give to stop().
+     */
+    public long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since start in the histogram of the given
+     * method or phase.
+     */
+    public void stop(String name, long start) {
+        if (ENABLED) {
+            long elapsed = System.nanoTime() - start;
+            getHistogram(name).record(elapsed);
+        }
+    }
+
+    public synchronized LatencyHistogram getHistogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Appends the histograms to the timings file and clears them.
+     */
+    public synchronized void dump() {
+        if (!ENABLED || histograms.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            lines.append(owner).append(';').append(e.getKey()).append(';').append(e.getValue().format()).append('\n');
+        }
+        histograms.clear();
+        try (FileChannel channel = FileChannel.open(Paths.get(FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                FileLock lock = channel.lock()) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(Timings.class.getName()).log(Level.WARNING, null, ex);
+        }
+    }
+}
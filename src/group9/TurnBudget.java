@@ -0,0 +1,122 @@
+package group9;
+
+/**
+ * Compute budget of the sampling searches of a party during one turn. The wall
+ * time of a turn spent outside of the party, and the negotiation time elapsed
+ * per turn, are estimated by moving averages over the observed turns. A turn
+ * may then take a share of the time the other parties take, without going
+ * over the estimated wall time left in the negotiation. Searches poll
+ * isIdle() and return what they found so far once it is true. Searches of a
+ * bounded cost, such as ConstrainedBidOptimizer, do not use it.
+ *
+ * A party calls startTurn() when it is asked for an action and endTurn() when
+ * it answers.
+ */
+public class TurnBudget {
+    /**
+     * Share of the wall time taken by the other parties during a turn that a
+     * turn may take.
+     */
+    private static final double TURN_SHARE = 0.5;
+    /**
+     * Share of the remaining wall time of the negotiation that a turn may
+     * take.
+     */
+    private static final double REMAINING_SHARE = 0.05;
+    /**
+     * Share of the budget after which a search finding nothing new stops.
+     */
+    private static final double IDLE_SHARE = 0.15;
+    /**
+     * Budget of the turns, in nanoseconds, until the turn durations are known.
+     */
+    private static final long DEFAULT_BUDGET = 2000000L;
+    private static final long MIN_BUDGET = 100000L;
+    private static final long MAX_BUDGET = 100000000L;
+    /**
+     * Weight of the last turn in the moving averages.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Negotiation time and wall time at the start of the last turn.
+     */
+    private double lastTime = Double.NaN;
+    private long lastStart;
+    /**
+     * Wall time taken by the last turn of the party.
+     */
+    private long lastTurnNanos;
+    /**
+     * Moving averages of the wall time spent by the other parties between two
+     * turns, and of the negotiation time elapsed between two turns.
+     */
+    private double externalNanos = Double.NaN;
+    private double timePerTurn = Double.NaN;
+
+    private long budget = DEFAULT_BUDGET;
+    private long deadline;
+
+    /**
+     * Updates the estimates with the turn which just ended, and starts the
+     * budget of a new turn.
+     * @param time The negotiation time, between 0 and 1.
+     */
+    public void startTurn(double time) {
+        long now = System.nanoTime();
+        if (!Double.isNaN(lastTime) && time > lastTime) {
+            double external = Math.max(0, now - lastStart - lastTurnNanos);
+            externalNanos = smooth(externalNanos, external);
+            timePerTurn = smooth(timePerTurn, time - lastTime);
+            double nanosPerTime = (externalNanos + lastTurnNanos) / timePerTurn;
+            double remaining = (1 - time) * nanosPerTime;
+            double limit = Math.min(TURN_SHARE * externalNanos, REMAINING_SHARE * remaining);
+            budget = Math.max(MIN_BUDGET, Math.min(MAX_BUDGET, (long) limit));
+        }
+        lastTime = time;
+        lastStart = now;
+        lastTurnNanos = 0;
+        deadline = now + budget;
+    }
+
+    /**
+     * Records the wall time taken by the turn started last.
+     */
+    public void endTurn() {
+        lastTurnNanos = System.nanoTime() - lastStart;
+    }
+
+    /**
+     * @return The negotiation time predicted for the start of the next turn,
+     * or NaN until the time elapsed per turn is known.
+     */
+    public double getNextTurnTime() {
+        return Math.min(1, lastTime + timePerTurn);
+    }
+
+    /**
+     * @return A budget of the same length as the current one, starting now,
+     * for a search run in another thread while this one keeps being updated.
+     */
+    public TurnBudget detach() {
+        TurnBudget detached = new TurnBudget();
+        detached.budget = budget;
+        detached.deadline = System.nanoTime() + budget;
+        return detached;
+    }
+
+    /**
+     * @param lastProgress The System.nanoTime() at which a search last found
+     * something new.
+     * @return Whether the search made no progress for too long a part of the
+     * budget, or the budget is spent.
+     */
+    public boolean isIdle(long lastProgress) {
+        long now = System.nanoTime();
+        return now - deadline >= 0 || now - lastProgress > IDLE_SHARE * budget;
+    }
+
+    private static double smooth(double average, double value) {
+        return Double.isNaN(average) ? value : average + SMOOTHING * (value - average);
+    }
+}
@@ -0,0 +1,162 @@
+package group9;
+
+import java.util.Arrays;
+import negotiator.Bid;
+
+/**
+ * Session-wide cache of our utility of bids, keyed by their mixed-radix
+ * encoding. The entries are held in an open-addressing table of bounded size:
+ * when it is full, an entry is evicted with the clock algorithm, which spares
+ * the entries read since the hand last passed over them. Utilities missing
+ * from the cache are computed from the tables of the DomainIndex. If the bids
+ * of the domain cannot be encoded, every lookup is a miss and nothing is
+ * stored.
+ *
+ * The cache is not thread-safe: each party owns its own, used by the thread
+ * choosing its actions, and the ObservationStore has one for the messages it
+ * decodes.
+ */
+public class UtilityCache {
+    private static final long EMPTY = -1;
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final DomainIndex domainIndex;
+    private final long[] keys;
+    private final double[] utilities;
+    /**
+     * Whether each entry was read since the clock hand last passed over it.
+     */
+    private final boolean[] referenced;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+    private int hand;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Value indices of the last bid looked up, reused to avoid allocations.
+     */
+    private final int[] bidValues;
+
+    public UtilityCache(DomainIndex domainIndex) {
+        this(domainIndex, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param maxSize The maximum number of utilities kept in the cache.
+     */
+    public UtilityCache(DomainIndex domainIndex, int maxSize) {
+        this.domainIndex = domainIndex;
+        this.maxSize = maxSize;
+        int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        utilities = new double[capacity];
+        referenced = new boolean[capacity];
+        mask = capacity - 1;
+        bidValues = new int[domainIndex.getIssueCount()];
+    }
+
+    public double getUtility(Bid bid) {
+        if (!domainIndex.canEncode()) {
+            misses++;
+            return domainIndex.getUtility(domainIndex.toIndices(bid, bidValues));
+        }
+        return getUtility(domainIndex.encode(bid));
+    }
+
+    /**
+     * Same as getUtility(Bid), for a bid given by its value indices.
+     */
+    public double getUtility(int[] values) {
+        if (!domainIndex.canEncode()) {
+            misses++;
+            return domainIndex.getUtility(values);
+        }
+        return getUtility(domainIndex.encode(values));
+    }
+
+    /**
+     * Same as getUtility(Bid), for an encoded bid.
+     */
+    public double getUtility(long key) {
+        int slot = LongHashSet.hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                hits++;
+                referenced[slot] = true;
+                return utilities[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        misses++;
+        double utility = domainIndex.getUtility(key);
+        if (size == maxSize) {
+            evict();
+            // The eviction may have shifted the entries
+            slot = LongHashSet.hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        keys[slot] = key;
+        utilities[slot] = utility;
+        referenced[slot] = false;
+        size++;
+        return utility;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves the clock hand to the first entry not read since the last pass,
+     * and removes it.
+     */
+    private void evict() {
+        while (true) {
+            hand = (hand + 1) & mask;
+            if (keys[hand] != EMPTY) {
+                if (!referenced[hand]) {
+                    remove(hand);
+                    return;
+                }
+                referenced[hand] = false;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of a slot, shifting back the following entries of its
+     * probe sequence so that lookups never stop at the hole.
+     */
+    private void remove(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = LongHashSet.hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                utilities[hole] = utilities[next];
+                referenced[hole] = referenced[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        referenced[hole] = false;
+        size--;
+    }
+}
@@ -0,0 +1,11 @@
+package group9.tools;
+
+/**
+ * Stand-in opponent conceding only close to the deadline.
+ */
+public class BoulwareParty extends TimeDependentParty {
+
+    public BoulwareParty() {
+        super(0.2);
+    }
+}
@@ -0,0 +1,11 @@
+package group9.tools;
+
+/**
+ * Stand-in opponent conceding quickly.
+ */
+public class ConcederParty extends TimeDependentParty {
+
+    public ConcederParty() {
+        super(2);
+    }
+}
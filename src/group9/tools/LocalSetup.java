@@ -0,0 +1,30 @@
+package group9.tools;
+
+import negotiator.AgentID;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.parties.AbstractNegotiationParty;
+import negotiator.parties.NegotiationInfo;
+import negotiator.timeline.TimeLineInfo;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Initialises parties outside of Genius, for the benchmarks and the headless
+ * tournaments.
+ */
+public class LocalSetup {
+
+    private LocalSetup() {
+    }
+
+    /**
+     * Initialises a party for a session limited in rounds.
+     * @param name Name of the party, Genius-style names being "Class@index".
+     */
+    public static <P extends AbstractNegotiationParty> P init(P party, AdditiveUtilitySpace utilitySpace,
+            TimeLineInfo timeline, int rounds, long seed, String name) {
+        party.init(new NegotiationInfo(utilitySpace, new Deadline(rounds, DeadlineType.ROUND), timeline, seed,
+                new AgentID(name)));
+        return party;
+    }
+}
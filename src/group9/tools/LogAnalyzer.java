@@ -0,0 +1,244 @@
+package group9.tools;
+
+import group9.RunningStats;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streaming replacement of score.py. The semicolon-separated tournament log is
+ * memory-mapped and cut into chunks at line boundaries, which are parsed in
+ * parallel. Each chunk accumulates running statistics per agent, which are
+ * merged at the end, so the memory used does not depend on the size of the
+ * log. Statistics can also be grouped by domain or by opponents.
+ *
+ * Usage: java group9.tools.LogAnalyzer logFile [--by-domain] [--by-opponent]
+ */
+public class LogAnalyzer {
+    private static final long CHUNK_SIZE = 64L << 20;
+
+    private static final int DISTANCE_COLUMN = 10;
+    private static final int AGENT_COLUMN = 12;
+    private static final int UTILITY_COLUMN = 15;
+    private static final int PROFILE_COLUMN = 21;
+    private static final int AGENT_COUNT = 3;
+
+    private final boolean byDomain;
+    private final boolean byOpponent;
+
+    public LogAnalyzer(boolean byDomain, boolean byOpponent) {
+        this.byDomain = byDomain;
+        this.byOpponent = byOpponent;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LogAnalyzer logFile [--by-domain] [--by-opponent]");
+            System.exit(1);
+        }
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+        LogAnalyzer analyzer = new LogAnalyzer(options.contains("--by-domain"), options.contains("--by-opponent"));
+        print(analyzer.analyze(args[0]));
+    }
+
+    /**
+     * Statistics of the utility and of the distance to Nash of one agent, or
+     * of one group of an agent.
+     */
+    public static class AgentStats {
+        public final RunningStats utility = new RunningStats();
+        public final RunningStats distance = new RunningStats();
+
+        void merge(AgentStats other) {
+            utility.merge(other.utility);
+            distance.merge(other.distance);
+        }
+    }
+
+    /**
+     * Parses the whole log.
+     * @return The statistics by group, sorted by group name.
+     */
+    public Map<String, AgentStats> analyze(String fileName) throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+                FileChannel channel = file.getChannel()) {
+            List<Long> boundaries = findBoundaries(channel);
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                List<Future<Map<String, AgentStats>>> chunks = new ArrayList<>();
+                for (int c = 0; c + 1 < boundaries.size(); c++) {
+                    long start = boundaries.get(c), end = boundaries.get(c + 1);
+                    chunks.add(executor.submit(() -> parseChunk(channel.map(FileChannel.MapMode.READ_ONLY,
+                            start, end - start))));
+                }
+                Map<String, AgentStats> result = new TreeMap<>();
+                for (Future<Map<String, AgentStats>> chunk : chunks) {
+                    for (Map.Entry<String, AgentStats> e : chunk.get().entrySet()) {
+                        result.computeIfAbsent(e.getKey(), key -> new AgentStats()).merge(e.getValue());
+                    }
+                }
+                return result;
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return The offsets cutting the file in chunks of about CHUNK_SIZE bytes,
+     * right after a line end, including 0 and the file size.
+     */
+    private static List<Long> findBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            long boundary = -1;
+            while (boundary < 0 && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break;
+                    }
+                }
+                position += Math.max(read, 0);
+            }
+            if (boundary < 0 || boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            position = boundary + CHUNK_SIZE;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    private Map<String, AgentStats> parseChunk(MappedByteBuffer chunk) {
+        Map<String, AgentStats> stats = new TreeMap<>();
+        int[] separators = new int[PROFILE_COLUMN + 2];
+        int lineStart = 0;
+        int limit = chunk.limit();
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            int fields = 0;
+            separators[fields++] = lineStart - 1;
+            while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                if (chunk.get(lineEnd) == ';' && fields < separators.length) {
+                    separators[fields++] = lineEnd;
+                }
+                lineEnd++;
+            }
+            parseLine(chunk, separators, fields, lineEnd, stats);
+            lineStart = lineEnd + 1;
+        }
+        return stats;
+    }
+
+    /**
+     * Adds a line to the statistics. Lines which are not sessions, like the
+     * header, are skipped, as score.py does.
+     * @param separators Positions of the separators before each field.
+     * @param fields Number of separators found.
+     */
+    private void parseLine(ByteBuffer chunk, int[] separators, int fields, int lineEnd,
+            Map<String, AgentStats> stats) {
+        if (fields < UTILITY_COLUMN + AGENT_COUNT) {
+            return;
+        }
+        String[] agents = new String[AGENT_COUNT];
+        double[] utilities = new double[AGENT_COUNT];
+        double distance;
+        try {
+            distance = Double.parseDouble(field(chunk, separators, fields, lineEnd, DISTANCE_COLUMN));
+            for (int a = 0; a < AGENT_COUNT; a++) {
+                String agent = field(chunk, separators, fields, lineEnd, AGENT_COLUMN + a);
+                agents[a] = agent.substring(0, agent.lastIndexOf('@'));
+                utilities[a] = Double.parseDouble(field(chunk, separators, fields, lineEnd, UTILITY_COLUMN + a));
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
+            return;
+        }
+
+        String domain = "";
+        if (byDomain) {
+            domain = fields > PROFILE_COLUMN ? getDomain(field(chunk, separators, fields, lineEnd, PROFILE_COLUMN))
+                    : "unknown";
+        }
+        for (int a = 0; a < AGENT_COUNT; a++) {
+            StringBuilder group = new StringBuilder(agents[a]);
+            if (byDomain) {
+                group.append(" on ").append(domain);
+            }
+            if (byOpponent) {
+                String[] opponents = new String[AGENT_COUNT - 1];
+                for (int o = 0, i = 0; o < AGENT_COUNT; o++) {
+                    if (o != a) {
+                        opponents[i++] = agents[o];
+                    }
+                }
+                Arrays.sort(opponents);
+                group.append(" vs ").append(String.join(", ", opponents));
+            }
+            AgentStats agentStats = stats.computeIfAbsent(group.toString(), key -> new AgentStats());
+            agentStats.utility.add(utilities[a]);
+            agentStats.distance.add(distance);
+        }
+    }
+
+    private static String field(ByteBuffer chunk, int[] separators, int fields, int lineEnd, int column) {
+        int start = separators[column] + 1;
+        int end = column + 1 < fields ? separators[column + 1] : lineEnd;
+        if (end > start && chunk.get(end - 1) == '\r') {
+            end--;
+        }
+        byte[] bytes = new byte[Math.max(0, end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = chunk.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The name of the directory of a profile file, which is the name
+     * of its domain.
+     */
+    private static String getDomain(String profile) {
+        String path = profile.replace('\\', '/');
+        int end = path.lastIndexOf('/');
+        if (end < 0) {
+            return "unknown";
+        }
+        return path.substring(path.lastIndexOf('/', end - 1) + 1, end);
+    }
+
+    private static void print(Map<String, AgentStats> stats) {
+        int pad = 20;
+        for (String group : stats.keySet()) {
+            pad = Math.max(pad, group.length() + 2);
+        }
+        for (Map.Entry<String, AgentStats> e : stats.entrySet()) {
+            RunningStats distance = e.getValue().distance;
+            RunningStats utility = e.getValue().utility;
+            System.out.printf("%-" + pad + "s n = %-8d dist2Nash = %.4f (std %.4f, min %.4f, max %.4f)"
+                    + "   utility = %.4f (std %.4f, min %.4f, max %.4f)%n",
+                    e.getKey() + ":", utility.getCount(),
+                    distance.getMean(), distance.getStandardDeviation(), distance.getMin(), distance.getMax(),
+                    utility.getMean(), utility.getStandardDeviation(), utility.getMin(), utility.getMax());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package group9.tools;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.EndNegotiation;
+import negotiator.actions.Offer;
+import negotiator.parties.AbstractNegotiationParty;
+import negotiator.timeline.DiscreteTimeline;
+
+/**
+ * One session of the stacked alternating offers protocol between initialised
+ * parties. The parties take turns; on its turn a party offers a bid, accepts
+ * the bid on the table or ends the negotiation, and every other party is told
+ * about it. An agreement is reached when all the other parties have accepted
+ * the last offer in a row. A round is over when every party had a turn.
+ */
+public class NegotiationSession {
+    private static final String[] PER_PARTY_COLUMNS = {"Agent ", "Utility ", "Disc. Util. ", "Profile "};
+
+    private static final List<Class<? extends Action>> FIRST_ACTIONS =
+            Collections.<Class<? extends Action>>singletonList(Offer.class);
+    private static final List<Class<? extends Action>> ACTIONS =
+            Arrays.asList(Accept.class, Offer.class, EndNegotiation.class);
+
+    private final AbstractNegotiationParty[] parties;
+    private final AgentID[] ids;
+    private final String[] profileNames;
+    private final DiscreteTimeline timeline;
+    private final int rounds;
+    private final OutcomeMetrics metrics;
+
+    /**
+     * @param parties The parties, already initialised on the timeline, in
+     * turn order.
+     * @param metrics Pareto and Nash metrics of the profiles of the parties,
+     * or null if unknown.
+     */
+    public NegotiationSession(AbstractNegotiationParty[] parties, AgentID[] ids, String[] profileNames,
+            DiscreteTimeline timeline, int rounds, OutcomeMetrics metrics) {
+        this.parties = parties;
+        this.ids = ids;
+        this.profileNames = profileNames;
+        this.timeline = timeline;
+        this.rounds = rounds;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The header of the log of sessions between the given number of
+     * parties, with the same columns as the Genius tournament log.
+     */
+    public static String header(int partyCount) {
+        StringBuilder header = new StringBuilder("Run time (s);Round;Exception;deadline;Agreement;Discounted;#agreeing;"
+                + "min.util.;max.util.;Dist. to Pareto;Dist. to Nash;Social Welfare");
+        for (String column : PER_PARTY_COLUMNS) {
+            for (int p = 1; p <= partyCount; p++) {
+                header.append(';').append(column).append(p);
+            }
+        }
+        return header.toString();
+    }
+
+    /**
+     * Runs the session to its end.
+     * @return The log line of the session.
+     */
+    public String run() {
+        long start = System.nanoTime();
+        Bid agreement = null;
+        Bid lastOffer = null;
+        int accepts = 0;
+        String exception = "";
+        boolean ended = false;
+        int round = 0;
+
+        while (!ended && timeline.getTime() < 1) {
+            round++;
+            for (int p = 0; p < parties.length && !ended; p++) {
+                Action action;
+                try {
+                    action = parties[p].chooseAction(lastOffer == null ? FIRST_ACTIONS : ACTIONS);
+                } catch (RuntimeException ex) {
+                    exception = ids[p] + ": " + ex;
+                    ended = true;
+                    break;
+                }
+
+                if (action instanceof Offer) {
+                    lastOffer = ((Offer) action).getBid();
+                    accepts = 0;
+                } else if (action instanceof Accept && lastOffer != null) {
+                    accepts++;
+                } else {
+                    ended = true;
+                }
+
+                for (int q = 0; q < parties.length; q++) {
+                    if (q != p) {
+                        parties[q].receiveMessage(ids[p], action);
+                    }
+                }
+
+                if (accepts == parties.length - 1) {
+                    agreement = lastOffer;
+                    ended = true;
+                }
+            }
+            timeline.increment();
+        }
+
+        for (AbstractNegotiationParty party : parties) {
+            party.negotiationEnded(agreement);
+        }
+        return log((System.nanoTime() - start) / 1e9, round, exception, agreement);
+    }
+
+    private String log(double runTime, int round, String exception, Bid agreement) {
+        double[] utilities = new double[parties.length];
+        if (agreement != null) {
+            for (int p = 0; p < parties.length; p++) {
+                utilities[p] = parties[p].getUtilitySpace().getUtility(agreement);
+            }
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, welfare = 0;
+        for (double utility : utilities) {
+            min = Math.min(min, utility);
+            max = Math.max(max, utility);
+            welfare += utility;
+        }
+
+        StringBuilder line = new StringBuilder();
+        append(line, String.format(Locale.ROOT, "%.3f", runTime));
+        append(line, round);
+        append(line, exception.replace(';', ','));
+        append(line, rounds + " rounds");
+        append(line, agreement != null ? "Yes" : "No");
+        append(line, "False");
+        append(line, agreement != null ? parties.length : 0);
+        append(line, min);
+        append(line, max);
+        append(line, metrics == null ? Double.NaN : metrics.distanceToPareto(utilities));
+        append(line, metrics == null ? Double.NaN : metrics.distanceToNash(utilities));
+        append(line, welfare);
+        for (AgentID id : ids) {
+            append(line, id.getName());
+        }
+        for (double utility : utilities) {
+            append(line, utility);
+        }
+        for (double utility : utilities) {
+            append(line, utility);
+        }
+        for (String profile : profileNames) {
+            append(line, profile);
+        }
+        line.setLength(line.length() - 1);
+        return line.toString();
+    }
+
+    private static void append(StringBuilder line, Object value) {
+        line.append(value).append(';');
+    }
+}
@@ -0,0 +1,99 @@
+package group9.tools;
+
+import group9.DomainIndex;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pareto frontier and Nash point of the outcome space for a set of profiles
+ * on the same domain, used to compute the distances logged for each session.
+ * The outcome space is enumerated, so domains larger than MAX_OUTCOMES have
+ * no metrics.
+ */
+public class OutcomeMetrics {
+    public static final long MAX_OUTCOMES = 200000;
+
+    /**
+     * Utilities of the Pareto-optimal outcomes, one array per outcome.
+     */
+    private final List<double[]> frontier = new ArrayList<>();
+    private final double[] nashPoint;
+
+    private OutcomeMetrics(DomainIndex[] profiles) {
+        int partyCount = profiles.length;
+        DomainIndex domain = profiles[0];
+        int[] values = new int[domain.getIssueCount()];
+        double[] nash = null;
+        double bestProduct = -1;
+        for (long key = 0; key < domain.getOutcomeCount(); key++) {
+            domain.decode(key, values);
+            double[] utilities = new double[partyCount];
+            double product = 1;
+            for (int p = 0; p < partyCount; p++) {
+                utilities[p] = profiles[p].getUtility(values);
+                product *= utilities[p];
+            }
+            if (product > bestProduct) {
+                bestProduct = product;
+                nash = utilities;
+            }
+            addToFrontier(utilities);
+        }
+        nashPoint = nash;
+    }
+
+    /**
+     * @return The metrics of the profiles, or null if the domain is too large.
+     */
+    public static OutcomeMetrics compute(DomainIndex[] profiles) {
+        long outcomes = profiles[0].getOutcomeCount();
+        if (outcomes < 0 || outcomes > MAX_OUTCOMES) {
+            return null;
+        }
+        return new OutcomeMetrics(profiles);
+    }
+
+    public double distanceToNash(double[] utilities) {
+        return distance(utilities, nashPoint);
+    }
+
+    public double distanceToPareto(double[] utilities) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double[] point : frontier) {
+            min = Math.min(min, distance(utilities, point));
+        }
+        return min;
+    }
+
+    private void addToFrontier(double[] utilities) {
+        for (double[] point : frontier) {
+            if (dominates(point, utilities)) {
+                return;
+            }
+        }
+        frontier.removeIf(point -> dominates(utilities, point));
+        frontier.add(utilities);
+    }
+
+    /**
+     * @return Whether a is at least as good as b for everyone, and differs.
+     */
+    private static boolean dominates(double[] a, double[] b) {
+        boolean better = false;
+        for (int p = 0; p < a.length; p++) {
+            if (a[p] < b[p]) {
+                return false;
+            }
+            better |= a[p] > b[p];
+        }
+        return better;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int p = 0; p < a.length; p++) {
+            sum += (a[p] - b[p]) * (a[p] - b[p]);
+        }
+        return Math.sqrt(sum);
+    }
+}
@@ -0,0 +1,33 @@
+package group9.tools;
+
+import java.util.List;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+
+/**
+ * Stand-in opponent offering uniformly random bids, and accepting offers
+ * above a minimum utility with a fixed probability.
+ */
+public class RandomParty extends StandInParty {
+    private static final double MIN_UTILITY = 0.5;
+    private static final double ACCEPT_PROBABILITY = 0.1;
+
+    @Override
+    protected double getTarget(double time) {
+        return MIN_UTILITY;
+    }
+
+    @Override
+    public Action chooseAction(List<Class<? extends Action>> possibleActions) {
+        if (lastOffer != null && possibleActions.contains(Accept.class)
+                && getUtility(lastOffer) >= MIN_UTILITY && random.nextDouble() < ACCEPT_PROBABILITY) {
+            return new Accept(getPartyId(), lastOffer);
+        }
+        int[] values = new int[domainIndex.getIssueCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(domainIndex.getValueCount(i));
+        }
+        return new Offer(getPartyId(), domainIndex.toBid(values));
+    }
+}
@@ -0,0 +1,59 @@
+package group9.tools;
+
+import group9.DomainIndex;
+import java.util.Random;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Offer;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Stand-in opponent producing the offers fed to a benchmarked party. It
+ * concedes linearly from its best bids down to a minimum utility, and offers
+ * the best of a few random bids close to its current target.
+ */
+public class ScriptedOpponent {
+    private static final int SAMPLES = 64;
+
+    private final AgentID id;
+    private final DomainIndex domainIndex;
+    private final double minUtility;
+    private final Random random;
+    private final int[] values;
+    private final int[] bestValues;
+
+    public ScriptedOpponent(AgentID id, AdditiveUtilitySpace utilitySpace, double minUtility, long seed) {
+        this.id = id;
+        this.domainIndex = new DomainIndex(utilitySpace);
+        this.minUtility = minUtility;
+        this.random = new Random(seed);
+        values = new int[domainIndex.getIssueCount()];
+        bestValues = new int[domainIndex.getIssueCount()];
+    }
+
+    public AgentID getId() {
+        return id;
+    }
+
+    /**
+     * @return The offer of this opponent at the given time.
+     */
+    public Offer nextOffer(double time) {
+        double target = 1 - time * (1 - minUtility);
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int s = 0; s < SAMPLES; s++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(domainIndex.getValueCount(i));
+            }
+            double utility = domainIndex.getUtility(values);
+            // Bids under the target are only taken if nothing above was found
+            double distance = utility >= target ? utility - target : 1 + target - utility;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                System.arraycopy(values, 0, bestValues, 0, values.length);
+            }
+        }
+        Bid bid = domainIndex.toBid(bestValues);
+        return new Offer(id, bid);
+    }
+}
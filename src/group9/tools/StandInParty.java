@@ -0,0 +1,101 @@
+package group9.tools;
+
+import group9.DomainIndex;
+import group9.OutcomeIndex;
+import java.util.List;
+import java.util.Random;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+import negotiator.parties.AbstractNegotiationParty;
+import negotiator.parties.NegotiationInfo;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Base of the simple opponents of the headless tournaments. Subclasses give a
+ * target utility at each turn: the party accepts an offer reaching it, and
+ * otherwise offers a random bid slightly above it.
+ */
+public abstract class StandInParty extends AbstractNegotiationParty {
+    /**
+     * Width of the utility band above the target in which the offers are
+     * drawn.
+     */
+    private static final double OFFER_BAND = 0.05;
+    private static final int SAMPLES = 200;
+
+    protected DomainIndex domainIndex;
+    private OutcomeIndex outcomeIndex;
+    protected Random random;
+    /**
+     * Last offer on the table, from any agent.
+     */
+    protected Bid lastOffer;
+
+    @Override
+    public void init(NegotiationInfo info) {
+        super.init(info);
+        domainIndex = new DomainIndex((AdditiveUtilitySpace) info.getUtilitySpace());
+        if (OutcomeIndex.fits(domainIndex)) {
+            outcomeIndex = new OutcomeIndex(domainIndex);
+        }
+        random = new Random(info.getRandomSeed());
+    }
+
+    /**
+     * @return The utility this party is aiming at, at the given time.
+     */
+    protected abstract double getTarget(double time);
+
+    @Override
+    public Action chooseAction(List<Class<? extends Action>> possibleActions) {
+        double target = getTarget(getTimeLine().getTime());
+        if (lastOffer != null && possibleActions.contains(Accept.class) && getUtility(lastOffer) >= target) {
+            return new Accept(getPartyId(), lastOffer);
+        }
+        return new Offer(getPartyId(), getBidAbove(target));
+    }
+
+    @Override
+    public void receiveMessage(AgentID sender, Action act) {
+        super.receiveMessage(sender, act);
+        if (act instanceof Offer) {
+            lastOffer = ((Offer) act).getBid();
+        }
+    }
+
+    /**
+     * @return A random bid having a utility between the target and the
+     * target plus OFFER_BAND, or the closest found.
+     */
+    protected Bid getBidAbove(double target) {
+        if (outcomeIndex != null) {
+            int low = outcomeIndex.countAtLeast(target + OFFER_BAND);
+            int high = Math.max(1, outcomeIndex.countAtLeast(target));
+            int rank = low >= high ? high - 1 : low + random.nextInt(high - low);
+            return domainIndex.toBid(outcomeIndex.getKey(rank));
+        }
+        int[] values = new int[domainIndex.getIssueCount()];
+        int[] best = new int[values.length];
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int s = 0; s < SAMPLES; s++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(domainIndex.getValueCount(i));
+            }
+            double utility = domainIndex.getUtility(values);
+            double distance = utility >= target ? utility - target : 1 + target - utility;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                System.arraycopy(values, 0, best, 0, values.length);
+            }
+        }
+        return domainIndex.toBid(best);
+    }
+
+    @Override
+    public String getDescription() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,113 @@
+package group9.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+import negotiator.Domain;
+import negotiator.DomainImpl;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Randomly generated discrete domain, written in the Genius XML format so
+ * that it is loaded exactly like the domains of a tournament. Profiles on
+ * this domain are generated on demand, with random issue weights and value
+ * evaluations.
+ */
+public class SyntheticDomain {
+    private final int issueCount;
+    private final int valueCount;
+    private final File directory;
+    private final Domain domain;
+    private final Random random;
+    private int profileCount;
+
+    /**
+     * Generates a domain of issueCount issues having valueCount values each.
+     * @param seed Seed of the generated profiles.
+     */
+    public SyntheticDomain(int issueCount, int valueCount, long seed) throws Exception {
+        this.issueCount = issueCount;
+        this.valueCount = valueCount;
+        this.random = new Random(seed);
+        directory = Files.createTempDirectory("synthetic_" + issueCount + "x" + valueCount + "_").toFile();
+        directory.deleteOnExit();
+
+        File domainFile = new File(directory, "domain.xml");
+        domainFile.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(domainFile, "UTF-8")) {
+            out.println("<negotiation_template>");
+            out.println("<utility_space number_of_issues=\"" + issueCount + "\">");
+            out.println("<objective index=\"0\" description=\"\" name=\"" + getName()
+                    + "\" type=\"objective\" etype=\"objective\">");
+            for (int i = 1; i <= issueCount; i++) {
+                out.println("<issue name=\"issue" + i + "\" index=\"" + i
+                        + "\" etype=\"discrete\" type=\"discrete\" vtype=\"discrete\">");
+                for (int v = 1; v <= valueCount; v++) {
+                    out.println("<item index=\"" + v + "\" value=\"value" + v + "\"/>");
+                }
+                out.println("</issue>");
+            }
+            out.println("</objective>");
+            out.println("</utility_space>");
+            out.println("</negotiation_template>");
+        }
+        domain = new DomainImpl(domainFile.getPath());
+    }
+
+    public String getName() {
+        return "synthetic" + issueCount + "x" + valueCount;
+    }
+
+    public Domain getDomain() {
+        return domain;
+    }
+
+    public int getIssueCount() {
+        return issueCount;
+    }
+
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * @return The path of the domain file.
+     */
+    public String getPath() {
+        return new File(directory, "domain.xml").getPath();
+    }
+
+    /**
+     * Generates a new random profile on this domain.
+     */
+    public synchronized AdditiveUtilitySpace createProfile() throws IOException {
+        File profileFile = new File(directory, "profile" + (++profileCount) + ".xml");
+        profileFile.deleteOnExit();
+        double[] weights = new double[issueCount];
+        double weightSum = 0;
+        for (int i = 0; i < issueCount; i++) {
+            weights[i] = random.nextDouble() + 0.05;
+            weightSum += weights[i];
+        }
+        try (PrintWriter out = new PrintWriter(profileFile, "UTF-8")) {
+            out.println("<utility_space>");
+            out.println("<objective index=\"0\" description=\"\" name=\"" + getName()
+                    + "\" type=\"objective\" etype=\"objective\">");
+            for (int i = 1; i <= issueCount; i++) {
+                out.println("<issue index=\"" + i + "\" etype=\"discrete\" type=\"discrete\" vtype=\"discrete\" name=\"issue"
+                        + i + "\">");
+                for (int v = 1; v <= valueCount; v++) {
+                    out.println("<item index=\"" + v + "\" value=\"value" + v + "\" evaluation=\""
+                            + (1 + random.nextInt(10)) + "\"/>");
+                }
+                out.println("</issue>");
+                out.println("<weight index=\"" + i + "\" value=\"" + (weights[i - 1] / weightSum) + "\"/>");
+            }
+            out.println("</objective>");
+            out.println("</utility_space>");
+        }
+        return new AdditiveUtilitySpace(domain, profileFile.getPath());
+    }
+}
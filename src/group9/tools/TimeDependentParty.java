@@ -0,0 +1,21 @@
+package group9.tools;
+
+/**
+ * Stand-in opponent conceding with time from its best utility to a minimum,
+ * along 1 - (1 - min) * t^(1/e). It is Boulware for e < 1 and Conceder for
+ * e > 1.
+ */
+public class TimeDependentParty extends StandInParty {
+    private static final double MIN_UTILITY = 0.5;
+
+    private final double e;
+
+    public TimeDependentParty(double e) {
+        this.e = e;
+    }
+
+    @Override
+    protected double getTarget(double time) {
+        return 1 - (1 - MIN_UTILITY) * Math.pow(time, 1 / e);
+    }
+}
@@ -0,0 +1,46 @@
+package group9.tools;
+
+import group9.LatencyHistogram;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Merges the latency histograms dumped by the parties when run with
+ * -Dgroup9.timings=true, over any number of sessions and timing files, and
+ * prints the latency percentiles of each method of each party.
+ *
+ * Usage: java group9.tools.TimingReport timingFile...
+ */
+public class TimingReport {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TimingReport timingFile...");
+            System.exit(1);
+        }
+        Map<String, LatencyHistogram> histograms = new TreeMap<>();
+        for (String file : args) {
+            try (Stream<String> lines = Files.lines(Paths.get(file), StandardCharsets.UTF_8)) {
+                lines.filter(line -> !line.isEmpty()).forEach(line -> {
+                    int owner = line.indexOf(';');
+                    int name = line.indexOf(';', owner + 1);
+                    LatencyHistogram histogram = LatencyHistogram.parse(line.substring(name + 1));
+                    histograms.computeIfAbsent(line.substring(0, name).replace(';', '.'), key -> new LatencyHistogram())
+                            .merge(histogram);
+                });
+            }
+        }
+        System.out.printf("%-40s %10s %10s %10s %10s %10s%n", "method", "calls", "mean us", "p50 us", "p99 us", "max us");
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            LatencyHistogram histogram = e.getValue();
+            System.out.printf("%-40s %10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), histogram.getCount(),
+                    histogram.getMean() / 1e3, histogram.getPercentile(0.5) / 1e3,
+                    histogram.getPercentile(0.99) / 1e3, histogram.getMax() / 1e3);
+        }
+    }
+}
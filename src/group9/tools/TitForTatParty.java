@@ -0,0 +1,38 @@
+package group9.tools;
+
+import negotiator.AgentID;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+
+/**
+ * Stand-in opponent reciprocating concessions: its target goes down by as
+ * much as the best offer received improved over the first one, in its own
+ * utility.
+ */
+public class TitForTatParty extends StandInParty {
+    private static final double MIN_UTILITY = 0.5;
+
+    private double firstReceivedUtility = Double.NaN;
+    private double bestReceivedUtility;
+
+    @Override
+    protected double getTarget(double time) {
+        if (Double.isNaN(firstReceivedUtility)) {
+            return 1;
+        }
+        return Math.max(MIN_UTILITY, 1 - (bestReceivedUtility - firstReceivedUtility));
+    }
+
+    @Override
+    public void receiveMessage(AgentID sender, Action act) {
+        super.receiveMessage(sender, act);
+        if (act instanceof Offer) {
+            double utility = getUtility(((Offer) act).getBid());
+            if (Double.isNaN(firstReceivedUtility)) {
+                firstReceivedUtility = utility;
+                bestReceivedUtility = utility;
+            }
+            bestReceivedUtility = Math.max(bestReceivedUtility, utility);
+        }
+    }
+}
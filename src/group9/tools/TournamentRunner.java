@@ -0,0 +1,155 @@
+package group9.tools;
+
+import group9.Agent9;
+import group9.DomainIndex;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import negotiator.AgentID;
+import negotiator.parties.AbstractNegotiationParty;
+import negotiator.timeline.DiscreteTimeline;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Runs three-party sessions of Agent9 against stand-in opponents without the
+ * Genius GUI, in parallel on all the cores. The log has the columns of the
+ * Genius tournament log, so it can be read by score.py.
+ *
+ * Usage: java group9.tools.TournamentRunner sessions logFile [issues values rounds profiles]
+ */
+public class TournamentRunner {
+    private static final int PARTY_COUNT = 3;
+    private static final List<Supplier<AbstractNegotiationParty>> OPPONENTS = new ArrayList<>();
+
+    static {
+        OPPONENTS.add(BoulwareParty::new);
+        OPPONENTS.add(ConcederParty::new);
+        OPPONENTS.add(RandomParty::new);
+        OPPONENTS.add(TitForTatParty::new);
+    }
+
+    private final int rounds;
+    private final List<AdditiveUtilitySpace> profiles = new ArrayList<>();
+    private final List<String> profileNames = new ArrayList<>();
+    private final List<DomainIndex> profileIndices = new ArrayList<>();
+    /**
+     * Metrics of each ordered triple of profiles, computed once.
+     */
+    private final ConcurrentHashMap<String, Optional<OutcomeMetrics>> metrics = new ConcurrentHashMap<>();
+
+    public TournamentRunner(SyntheticDomain domain, int profileCount, int rounds) throws IOException {
+        this.rounds = rounds;
+        for (int p = 1; p <= profileCount; p++) {
+            AdditiveUtilitySpace profile = domain.createProfile();
+            profiles.add(profile);
+            profileNames.add(domain.getName() + "/profile" + p + ".xml");
+            profileIndices.add(new DomainIndex(profile));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TournamentRunner sessions logFile [issues values rounds profiles]");
+            System.exit(1);
+        }
+        int sessions = Integer.parseInt(args[0]);
+        int issues = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int values = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        int profileCount = args.length > 5 ? Integer.parseInt(args[5]) : 6;
+
+        TournamentRunner runner = new TournamentRunner(new SyntheticDomain(issues, values, 42), profileCount, rounds);
+        try (BufferedWriter log = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            runner.run(sessions, log);
+        }
+    }
+
+    /**
+     * Runs the sessions on all the cores, writing their log lines as they
+     * finish.
+     */
+    public void run(int sessions, BufferedWriter log) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        log.write(NegotiationSession.header(PARTY_COUNT));
+        log.newLine();
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            final int session = s;
+            results.add(executor.submit(() -> createSession(session).run()));
+        }
+        int failed = 0;
+        for (Future<String> result : results) {
+            try {
+                log.write(result.get());
+                log.newLine();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                failed++;
+                ex.getCause().printStackTrace();
+            }
+        }
+        executor.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d sessions (%d failed) in %.1f s on %d threads: %.1f sessions/s%n",
+                sessions, failed, seconds, threads, sessions / seconds);
+    }
+
+    /**
+     * Sets up a session of Agent9 against two stand-in opponents. The
+     * opponents, the profiles and the position of Agent9 depend on the
+     * session number.
+     */
+    private NegotiationSession createSession(int session) throws IOException {
+        Random random = new Random(session);
+        AbstractNegotiationParty[] parties = new AbstractNegotiationParty[PARTY_COUNT];
+        int agent9Position = session % parties.length;
+        int opponent = 0;
+        for (int p = 0; p < parties.length; p++) {
+            if (p == agent9Position) {
+                parties[p] = new Agent9();
+            } else {
+                int type = opponent++ == 0 ? (session / 3) % OPPONENTS.size()
+                        : (session / (3 * OPPONENTS.size())) % OPPONENTS.size();
+                parties[p] = OPPONENTS.get(type).get();
+            }
+        }
+
+        // Distinct random profiles
+        List<Integer> profileOrder = new ArrayList<>();
+        while (profileOrder.size() < parties.length) {
+            int profile = random.nextInt(profiles.size());
+            if (!profileOrder.contains(profile)) {
+                profileOrder.add(profile);
+            }
+        }
+
+        DiscreteTimeline timeline = new DiscreteTimeline(rounds);
+        AgentID[] ids = new AgentID[parties.length];
+        String[] names = new String[parties.length];
+        DomainIndex[] indices = new DomainIndex[parties.length];
+        for (int p = 0; p < parties.length; p++) {
+            int profile = profileOrder.get(p);
+            ids[p] = new AgentID(parties[p].getClass().getSimpleName() + "@" + p);
+            names[p] = profileNames.get(profile);
+            indices[p] = profileIndices.get(profile);
+            LocalSetup.init(parties[p], profiles.get(profile), timeline, rounds, random.nextLong(), ids[p].getName());
+        }
+        OutcomeMetrics sessionMetrics = metrics.computeIfAbsent(profileOrder.toString(),
+                key -> Optional.ofNullable(OutcomeMetrics.compute(indices))).orElse(null);
+        return new NegotiationSession(parties, ids, names, timeline, rounds, sessionMetrics);
+    }
+}
@@ -0,0 +1,30 @@
+package negotiator;
+
+import java.io.Serializable;
+
+public class AgentID implements Serializable {
+    private final String id;
+
+    public AgentID(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AgentID && id.equals(((AgentID) other).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,64 @@
+package negotiator;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import negotiator.issue.Issue;
+import negotiator.issue.Value;
+
+/**
+ * Immutable assignment of a value to each issue of a domain.
+ */
+public class Bid implements Serializable {
+    private final Domain domain;
+    private final HashMap<Integer, Value> values;
+
+    public Bid(Domain domain, HashMap<Integer, Value> values) {
+        this.domain = domain;
+        this.values = new HashMap<>(values);
+    }
+
+    public Bid(Domain domain) {
+        this(domain, new HashMap<Integer, Value>());
+    }
+
+    public Value getValue(int issueNumber) {
+        return values.get(issueNumber);
+    }
+
+    public HashMap<Integer, Value> getValues() {
+        return new HashMap<>(values);
+    }
+
+    /**
+     * @return A copy of this bid, with the given value for the given issue.
+     */
+    public Bid putValue(int issueNumber, Value value) {
+        Bid bid = new Bid(domain, values);
+        bid.values.put(issueNumber, value);
+        return bid;
+    }
+
+    public List<Issue> getIssues() {
+        return domain.getIssues();
+    }
+
+    public Domain getDomain() {
+        return domain;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Bid && values.equals(((Bid) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Bid" + values;
+    }
+}
@@ -0,0 +1,23 @@
+package negotiator;
+
+public class Deadline {
+    private final int value;
+    private final DeadlineType type;
+
+    public Deadline() {
+        this(180, DeadlineType.ROUND);
+    }
+
+    public Deadline(int value, DeadlineType type) {
+        this.value = value;
+        this.type = type;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public DeadlineType getType() {
+        return type;
+    }
+}
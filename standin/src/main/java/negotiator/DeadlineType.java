@@ -0,0 +1,5 @@
+package negotiator;
+
+public enum DeadlineType {
+    ROUND, TIME
+}
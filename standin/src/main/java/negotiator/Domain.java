@@ -0,0 +1,15 @@
+package negotiator;
+
+import java.util.List;
+import java.util.Random;
+import negotiator.issue.Issue;
+
+public interface Domain {
+    List<Issue> getIssues();
+
+    String getName();
+
+    long getNumberOfPossibleBids();
+
+    Bid getRandomBid(Random random);
+}
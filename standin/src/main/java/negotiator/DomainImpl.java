@@ -0,0 +1,72 @@
+package negotiator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import javax.xml.parsers.DocumentBuilderFactory;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Domain of discrete issues read from a Genius domain file.
+ */
+public class DomainImpl implements Domain {
+    private final String name;
+    private final List<Issue> issues = new ArrayList<>();
+
+    public DomainImpl(String filename) throws Exception {
+        name = filename;
+        Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(filename))
+                .getDocumentElement();
+        NodeList issueElements = root.getElementsByTagName("issue");
+        for (int i = 0; i < issueElements.getLength(); i++) {
+            Element issue = (Element) issueElements.item(i);
+            if (!"discrete".equals(issue.getAttribute("etype"))) {
+                throw new IllegalArgumentException("Only discrete issues are supported: " + issue.getAttribute("name"));
+            }
+            List<ValueDiscrete> values = new ArrayList<>();
+            NodeList items = issue.getElementsByTagName("item");
+            for (int v = 0; v < items.getLength(); v++) {
+                values.add(new ValueDiscrete(((Element) items.item(v)).getAttribute("value")));
+            }
+            issues.add(new IssueDiscrete(issue.getAttribute("name"), Integer.parseInt(issue.getAttribute("index")),
+                    values));
+        }
+    }
+
+    @Override
+    public List<Issue> getIssues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getNumberOfPossibleBids() {
+        long count = 1;
+        for (Issue issue : issues) {
+            count *= ((IssueDiscrete) issue).getNumberOfValues();
+        }
+        return count;
+    }
+
+    @Override
+    public Bid getRandomBid(Random random) {
+        HashMap<Integer, Value> values = new HashMap<>();
+        for (Issue issue : issues) {
+            IssueDiscrete discrete = (IssueDiscrete) issue;
+            values.put(issue.getNumber(), discrete.getValue(random.nextInt(discrete.getNumberOfValues())));
+        }
+        return new Bid(this, values);
+    }
+}
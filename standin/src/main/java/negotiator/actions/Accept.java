@@ -0,0 +1,22 @@
+package negotiator.actions;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+
+public class Accept extends Action {
+    private final Bid bid;
+
+    public Accept(AgentID agent, Bid bid) {
+        super(agent);
+        this.bid = bid;
+    }
+
+    public Bid getBid() {
+        return bid;
+    }
+
+    @Override
+    public String toString() {
+        return "Accept " + getAgent() + " " + bid;
+    }
+}
@@ -0,0 +1,16 @@
+package negotiator.actions;
+
+import java.io.Serializable;
+import negotiator.AgentID;
+
+public abstract class Action implements Serializable {
+    private final AgentID agent;
+
+    protected Action(AgentID agent) {
+        this.agent = agent;
+    }
+
+    public AgentID getAgent() {
+        return agent;
+    }
+}
@@ -0,0 +1,9 @@
+package negotiator.actions;
+
+import negotiator.AgentID;
+
+public class EndNegotiation extends Action {
+    public EndNegotiation(AgentID agent) {
+        super(agent);
+    }
+}
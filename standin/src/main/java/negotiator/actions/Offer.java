@@ -0,0 +1,22 @@
+package negotiator.actions;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+
+public class Offer extends Action {
+    private final Bid bid;
+
+    public Offer(AgentID agent, Bid bid) {
+        super(agent);
+        this.bid = bid;
+    }
+
+    public Bid getBid() {
+        return bid;
+    }
+
+    @Override
+    public String toString() {
+        return "Offer " + getAgent() + " " + bid;
+    }
+}
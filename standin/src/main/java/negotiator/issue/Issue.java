@@ -0,0 +1,24 @@
+package negotiator.issue;
+
+public abstract class Issue {
+    private final String name;
+    private final int number;
+
+    protected Issue(String name, int number) {
+        this.name = name;
+        this.number = number;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
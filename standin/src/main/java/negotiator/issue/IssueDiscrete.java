@@ -0,0 +1,33 @@
+package negotiator.issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class IssueDiscrete extends Issue {
+    private final List<ValueDiscrete> values;
+
+    public IssueDiscrete(String name, int number, List<ValueDiscrete> values) {
+        super(name, number);
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    public List<ValueDiscrete> getValues() {
+        return values;
+    }
+
+    public int getNumberOfValues() {
+        return values.size();
+    }
+
+    public ValueDiscrete getValue(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * @return The index of the value, or -1 if it is not a value of this issue.
+     */
+    public int getValueIndex(ValueDiscrete value) {
+        return values.indexOf(value);
+    }
+}
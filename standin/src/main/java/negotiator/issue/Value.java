@@ -0,0 +1,6 @@
+package negotiator.issue;
+
+import java.io.Serializable;
+
+public abstract class Value implements Serializable {
+}
@@ -0,0 +1,28 @@
+package negotiator.issue;
+
+public class ValueDiscrete extends Value {
+    private final String value;
+
+    public ValueDiscrete(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ValueDiscrete && value.equals(((ValueDiscrete) other).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
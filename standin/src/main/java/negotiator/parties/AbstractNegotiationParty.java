@@ -0,0 +1,59 @@
+package negotiator.parties;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.actions.Action;
+import negotiator.timeline.TimeLineInfo;
+import negotiator.utility.AbstractUtilitySpace;
+
+/**
+ * Base of the parties, keeping what they were initialised with.
+ */
+public abstract class AbstractNegotiationParty implements Serializable {
+    protected AbstractUtilitySpace utilitySpace;
+    protected TimeLineInfo timeline;
+    protected Random rand;
+    private AgentID partyId;
+
+    public void init(NegotiationInfo info) {
+        utilitySpace = info.getUtilitySpace();
+        timeline = info.getTimeline();
+        rand = new Random(info.getRandomSeed());
+        partyId = info.getAgentID();
+    }
+
+    public double getUtility(Bid bid) {
+        return bid == null ? 0 : utilitySpace.getUtility(bid);
+    }
+
+    public Bid generateRandomBid() {
+        return utilitySpace.getDomain().getRandomBid(rand);
+    }
+
+    public TimeLineInfo getTimeLine() {
+        return timeline;
+    }
+
+    public AgentID getPartyId() {
+        return partyId;
+    }
+
+    public AbstractUtilitySpace getUtilitySpace() {
+        return utilitySpace;
+    }
+
+    public void receiveMessage(AgentID sender, Action action) {
+    }
+
+    public abstract Action chooseAction(List<Class<? extends Action>> possibleActions);
+
+    public abstract String getDescription();
+
+    public Map<String, String> negotiationEnded(Bid acceptedBid) {
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package negotiator.parties;
+
+import negotiator.AgentID;
+import negotiator.Deadline;
+import negotiator.timeline.TimeLineInfo;
+import negotiator.utility.AbstractUtilitySpace;
+
+public class NegotiationInfo {
+    private final AbstractUtilitySpace utilitySpace;
+    private final Deadline deadline;
+    private final TimeLineInfo timeline;
+    private final long randomSeed;
+    private final AgentID agentID;
+
+    public NegotiationInfo(AbstractUtilitySpace utilitySpace, Deadline deadline, TimeLineInfo timeline,
+            long randomSeed, AgentID agentID) {
+        this.utilitySpace = utilitySpace;
+        this.deadline = deadline;
+        this.timeline = timeline;
+        this.randomSeed = randomSeed;
+        this.agentID = agentID;
+    }
+
+    public AbstractUtilitySpace getUtilitySpace() {
+        return utilitySpace;
+    }
+
+    public TimeLineInfo getTimeline() {
+        return timeline;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public AgentID getAgentID() {
+        return agentID;
+    }
+}
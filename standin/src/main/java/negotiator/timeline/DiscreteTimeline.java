@@ -0,0 +1,40 @@
+package negotiator.timeline;
+
+/**
+ * Timeline counted in rounds, advanced by the protocol.
+ */
+public class DiscreteTimeline implements TimeLineInfo {
+    private final int totalRounds;
+    private int round;
+
+    public DiscreteTimeline(int totalRounds) {
+        this.totalRounds = totalRounds;
+    }
+
+    public void increment() {
+        round++;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    @Override
+    public double getTime() {
+        return Math.min(1, (double) round / totalRounds);
+    }
+
+    @Override
+    public double getTotalTime() {
+        return totalRounds;
+    }
+
+    @Override
+    public double getCurrentTime() {
+        return round;
+    }
+}
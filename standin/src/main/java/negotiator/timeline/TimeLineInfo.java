@@ -0,0 +1,12 @@
+package negotiator.timeline;
+
+public interface TimeLineInfo {
+    /**
+     * @return The normalised time, from 0 at the start to 1 at the deadline.
+     */
+    double getTime();
+
+    double getTotalTime();
+
+    double getCurrentTime();
+}
@@ -0,0 +1,29 @@
+package negotiator.utility;
+
+import java.io.Serializable;
+import negotiator.Bid;
+import negotiator.Domain;
+
+public abstract class AbstractUtilitySpace implements Serializable {
+    private final Domain domain;
+    private final String fileName;
+
+    protected AbstractUtilitySpace(Domain domain, String fileName) {
+        this.domain = domain;
+        this.fileName = fileName;
+    }
+
+    public Domain getDomain() {
+        return domain;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public abstract double getUtility(Bid bid);
+
+    public abstract Bid getMaxUtilityBid() throws Exception;
+
+    public abstract Bid getMinUtilityBid() throws Exception;
+}
@@ -0,0 +1,108 @@
+package negotiator.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import negotiator.Bid;
+import negotiator.Domain;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Weighted sum of the evaluations of the values of a bid, read from a Genius
+ * profile file.
+ */
+public class AdditiveUtilitySpace extends AbstractUtilitySpace {
+    private final Map<Integer, EvaluatorDiscrete> evaluators = new HashMap<>();
+
+    public AdditiveUtilitySpace(Domain domain, String fileName) throws IOException {
+        super(domain, fileName);
+        Element root;
+        try {
+            root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(fileName))
+                    .getDocumentElement();
+        } catch (Exception ex) {
+            throw new IOException("Cannot read the profile " + fileName, ex);
+        }
+
+        Map<Integer, Double> weights = new HashMap<>();
+        NodeList weightElements = root.getElementsByTagName("weight");
+        for (int w = 0; w < weightElements.getLength(); w++) {
+            Element weight = (Element) weightElements.item(w);
+            weights.put(Integer.parseInt(weight.getAttribute("index")), Double.parseDouble(weight.getAttribute("value")));
+        }
+        NodeList issueElements = root.getElementsByTagName("issue");
+        for (int i = 0; i < issueElements.getLength(); i++) {
+            Element issue = (Element) issueElements.item(i);
+            int number = Integer.parseInt(issue.getAttribute("index"));
+            Map<ValueDiscrete, Integer> evaluations = new HashMap<>();
+            NodeList items = issue.getElementsByTagName("item");
+            for (int v = 0; v < items.getLength(); v++) {
+                Element item = (Element) items.item(v);
+                evaluations.put(new ValueDiscrete(item.getAttribute("value")),
+                        Integer.parseInt(item.getAttribute("evaluation")));
+            }
+            Double weight = weights.get(number);
+            evaluators.put(number, new EvaluatorDiscrete(weight == null ? 0 : weight, evaluations));
+        }
+    }
+
+    /**
+     * @param index Number of the issue.
+     */
+    public Evaluator getEvaluator(int index) {
+        return evaluators.get(index);
+    }
+
+    public double getWeight(int issueNumber) {
+        EvaluatorDiscrete evaluator = evaluators.get(issueNumber);
+        return evaluator == null ? 0 : evaluator.getWeight();
+    }
+
+    @Override
+    public double getUtility(Bid bid) {
+        double utility = 0;
+        for (Map.Entry<Integer, EvaluatorDiscrete> e : evaluators.entrySet()) {
+            EvaluatorDiscrete evaluator = e.getValue();
+            utility += evaluator.getWeight() * evaluator.getDoubleValue((ValueDiscrete) bid.getValue(e.getKey()));
+        }
+        return utility;
+    }
+
+    @Override
+    public Bid getMaxUtilityBid() {
+        return getExtremeBid(1);
+    }
+
+    @Override
+    public Bid getMinUtilityBid() {
+        return getExtremeBid(-1);
+    }
+
+    /**
+     * @param sign 1 for the best bid, -1 for the worst one.
+     */
+    private Bid getExtremeBid(int sign) {
+        HashMap<Integer, Value> values = new HashMap<>();
+        for (Issue issue : getDomain().getIssues()) {
+            EvaluatorDiscrete evaluator = evaluators.get(issue.getNumber());
+            ValueDiscrete best = null;
+            double bestEvaluation = Double.NEGATIVE_INFINITY;
+            for (ValueDiscrete value : ((IssueDiscrete) issue).getValues()) {
+                double evaluation = sign * evaluator.getDoubleValue(value);
+                if (evaluation > bestEvaluation) {
+                    best = value;
+                    bestEvaluation = evaluation;
+                }
+            }
+            values.put(issue.getNumber(), best);
+        }
+        return new Bid(getDomain(), values);
+    }
+}
@@ -0,0 +1,5 @@
+package negotiator.utility;
+
+public interface Evaluator {
+    double getWeight();
+}
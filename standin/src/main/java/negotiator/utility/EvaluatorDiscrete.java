@@ -0,0 +1,45 @@
+package negotiator.utility;
+
+import java.util.HashMap;
+import java.util.Map;
+import negotiator.issue.ValueDiscrete;
+
+/**
+ * Weight and evaluation of the values of a discrete issue.
+ */
+public class EvaluatorDiscrete implements Evaluator {
+    private final double weight;
+    private final Map<ValueDiscrete, Integer> evaluations;
+    private final int maxEvaluation;
+
+    public EvaluatorDiscrete(double weight, Map<ValueDiscrete, Integer> evaluations) {
+        this.weight = weight;
+        this.evaluations = new HashMap<>(evaluations);
+        int max = 0;
+        for (int evaluation : evaluations.values()) {
+            max = Math.max(max, evaluation);
+        }
+        maxEvaluation = max;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return The evaluation of the value divided by the largest evaluation
+     * of the issue.
+     */
+    public Double getDoubleValue(ValueDiscrete value) {
+        Integer evaluation = evaluations.get(value);
+        if (evaluation == null || maxEvaluation == 0) {
+            return 0.;
+        }
+        return (double) evaluation / maxEvaluation;
+    }
+
+    public Integer getEvaluationNotNormalized(ValueDiscrete value) {
+        return evaluations.get(value);
+    }
+}
@@ -0,0 +1,53 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class AccumulatedFrequencySumTest {
+
+    @Test
+    public void predictsTheMeanOfTheModels() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(6, 4, 51));
+        AccumulatedFrequency[] models = new AccumulatedFrequency[5];
+        for (int m = 0; m < models.length; m++) {
+            models[m] = new AccumulatedFrequency(domainIndex);
+        }
+        AccumulatedFrequencySum sum = new AccumulatedFrequencySum(models);
+        Random random = new Random(52);
+        int[] values = new int[6];
+        CandidateBatch batch = new CandidateBatch(domainIndex);
+        float[] utilities = new float[64];
+
+        for (int round = 0; round < 40; round++) {
+            long version = sum.GetVersion();
+            randomBid(random, values);
+            models[round % models.length].AddBid(values, round / 40f);
+            assertNotEquals(version, sum.GetVersion());
+
+            batch.clear();
+            for (int c = 0; c < 64; c++) {
+                batch.add(randomBid(random, values));
+            }
+            sum.GetPredictedUtilities(batch, utilities);
+            for (int c = 0; c < 64; c++) {
+                batch.getValues(c, values);
+                float mean = 0;
+                for (AccumulatedFrequency model : models) {
+                    mean += model.GetPredictedUtility(values) / models.length;
+                }
+                assertEquals(mean, sum.GetPredictedUtility(values), 1e-5);
+                assertEquals(mean, utilities[c], 1e-5);
+            }
+        }
+    }
+
+    private static int[] randomBid(Random random, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(4);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,130 @@
+package group9;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ActionLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsTheLastActionsAcrossTheEndOfTheRing() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 31));
+        ActionLog log = new ActionLog(domainIndex, 3);
+
+        for (int n = 0; n < 8; n++) {
+            if (n % 4 == 3) {
+                log.add(ActionLog.OTHER, null, n / 10.0, Double.NaN);
+            } else {
+                log.add(ActionLog.OFFER, values(n), n / 10.0, n);
+            }
+            assertEquals(Math.min(n + 1, 3), log.size());
+
+            for (int age = 0; age < log.size(); age++) {
+                int slot = log.getSlot(age);
+                int added = n - age;
+                assertEquals(added / 10.0, log.getTime(slot), 0);
+                if (added % 4 == 3) {
+                    assertEquals(ActionLog.OTHER, log.getType(slot));
+                    assertFalse(log.hasBid(slot));
+                    assertTrue(Double.isNaN(log.getUtility(slot)));
+                } else {
+                    assertEquals(ActionLog.OFFER, log.getType(slot));
+                    assertTrue(log.hasBid(slot));
+                    assertEquals(domainIndex.fingerprint(values(added)), log.getBid(slot));
+                    assertEquals(added, log.getUtility(slot), 0);
+                    int[] stored = Arrays.copyOfRange(log.getValues(), slot * 3, slot * 3 + 3);
+                    assertArrayEquals(values(added), stored);
+                }
+            }
+        }
+        assertEquals(8, log.getTotalCount());
+    }
+
+    @Test
+    public void foldsTheEvictedActionsIntoSummaries() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 34));
+        ActionLog log = new ActionLog(domainIndex, 4);
+        RunningStats times = new RunningStats();
+        RunningStats offerUtilities = new RunningStats();
+        long others = 0;
+
+        int count = 10_000;
+        for (int n = 0; n < count; n++) {
+            byte type = n % 5 == 4 ? ActionLog.ACCEPT : n % 7 == 6 ? ActionLog.OTHER : ActionLog.OFFER;
+            int[] bid = type == ActionLog.OTHER ? null : values(n);
+            double utility = bid == null ? Double.NaN : domainIndex.getUtility(bid);
+            log.add(type, bid, n / (double) count, utility);
+
+            // The actions older than the last 4 are evicted
+            if (n < count - 4) {
+                times.add(n / (double) count);
+                if (type == ActionLog.OFFER) {
+                    offerUtilities.add(utility);
+                }
+                if (type == ActionLog.OTHER) {
+                    others++;
+                }
+            }
+        }
+
+        assertEquals(4, log.size());
+        assertEquals(count - 4, log.getEvictedCount(ActionLog.OFFER) + log.getEvictedCount(ActionLog.ACCEPT)
+                + log.getEvictedCount(ActionLog.OTHER));
+        assertEquals(others, log.getEvictedCount(ActionLog.OTHER));
+        assertEquals(times.getCount(), log.getEvictedTimes().getCount());
+        assertEquals(times.getMean(), log.getEvictedTimes().getMean(), 1e-12);
+        assertEquals(offerUtilities.getCount(), log.getEvictedOfferUtilities().getCount());
+        assertEquals(offerUtilities.getMean(), log.getEvictedOfferUtilities().getMean(), 1e-12);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsAgesBeyondTheRing() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 32));
+        ActionLog log = new ActionLog(domainIndex, 3);
+        log.add(ActionLog.OFFER, values(0), 0, 0);
+        log.getSlot(1);
+    }
+
+    @Test
+    public void writesEveryActionToTheFile() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 33));
+        Path file = folder.newFile().toPath();
+        try (ActionLog log = new ActionLog(domainIndex, 2, file)) {
+            for (int n = 0; n < 5; n++) {
+                log.add(ActionLog.OFFER, values(n), n / 10.0, domainIndex.getUtility(values(n)));
+            }
+            log.add(ActionLog.OTHER, null, 0.5, Double.NaN);
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(16 + 6 * 26, data.capacity());
+        assertEquals(domainIndex.getStructureHash(), data.getLong(8));
+        data.position(16);
+        for (int n = 0; n < 5; n++) {
+            assertEquals(1, data.get());
+            assertEquals(domainIndex.fingerprint(values(n)), data.getLong());
+            assertEquals(ActionLog.OFFER, data.get());
+            assertEquals(n / 10.0, data.getDouble(), 0);
+            assertEquals(domainIndex.getUtility(values(n)), data.getDouble(), 0);
+        }
+        assertEquals(0, data.get());
+        data.getLong();
+        assertEquals(ActionLog.OTHER, data.get());
+    }
+
+    private static int[] values(int n) {
+        return new int[] {n % 4, (n / 4) % 4, (n + 1) % 4};
+    }
+}
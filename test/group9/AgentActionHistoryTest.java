@@ -0,0 +1,55 @@
+package group9;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import negotiator.AgentID;
+import negotiator.actions.Offer;
+import org.junit.Test;
+
+public class AgentActionHistoryTest {
+
+    /**
+     * Adds many distinct bids and checks that the history stops allocating
+     * once its ring is full, so that its memory does not grow with the length
+     * of the session.
+     */
+    @Test
+    public void keepsItsMemoryFlatOverManyRounds() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(10, 10, 71));
+        AgentID agent = new AgentID("Opponent");
+        AgentActionHistory history = new AgentActionHistory(agent, domainIndex);
+        Random random = new Random(72);
+        int[] values = new int[10];
+        Offer offer = new Offer(agent, domainIndex.toBid(values));
+        Observation observation = new Observation(agent, offer, offer.getBid(), values, 0.5, 0.5);
+
+        // Fills the ring, and lets the JIT settle
+        addRandomBids(history, observation, values, random, 20_000);
+
+        long thread = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(thread);
+        addRandomBids(history, observation, values, random, 200_000);
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        history.Close();
+
+        assertTrue("Allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+
+    private static void addRandomBids(AgentActionHistory history, Observation observation, int[] values,
+            Random random, int count) {
+        for (int n = 0; n < count; n++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(10);
+            }
+            history.AddObservation(observation);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class BidFilterTest {
+
+    @Test
+    public void isExactOnSmallDomains() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 5, 61));
+        BidFilter filter = new BidFilter(domainIndex);
+        assertTrue(filter.isExact());
+        int[] values = new int[4];
+
+        for (long key = 0; key < domainIndex.getOutcomeCount(); key++) {
+            assertTrue(filter.add(domainIndex.decode(key, values)));
+        }
+        for (long key = 0; key < domainIndex.getOutcomeCount(); key++) {
+            assertFalse(filter.add(domainIndex.decode(key, values)));
+        }
+    }
+
+    @Test
+    public void rarelyMistakesNewBidsOnLargeDomains() throws Exception {
+        // 10^10 bids, too many for an exact bitmap
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(10, 10, 62));
+        BidFilter filter = new BidFilter(domainIndex);
+        assertFalse(filter.isExact());
+        assertEquals(BidFilter.MAX_BITS / 8, filter.getSizeInBytes());
+
+        Random random = new Random(63);
+        Set<Long> seen = new HashSet<>();
+        int[] values = new int[10];
+        int mistaken = 0;
+        for (int n = 0; n < 50_000; n++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(10);
+            }
+            boolean isNew = seen.add(domainIndex.fingerprint(values));
+            boolean added = filter.add(values);
+            // Never takes a known bid for a new one
+            assertTrue(isNew || !added);
+            if (isNew && !added) {
+                mistaken++;
+            }
+        }
+        assertTrue("Mistaken " + mistaken, mistaken < 500);
+        assertEquals(BidFilter.MAX_BITS / 8, filter.getSizeInBytes());
+    }
+}
@@ -0,0 +1,64 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CSVWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesTheRowsBeforeFlushReturns() throws Exception {
+        File file = folder.newFile("stats.csv");
+        CSVWriter writer = new CSVWriter();
+        writer.startWriting(file.getPath());
+        writer.addOf("a", 1);
+        writer.addOf("a", 3);
+        writer.writeData();
+        writer.flush();
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertEquals("a,2.0,1.0,2.0", lines.get(0));
+        writer.stopWriting(file.getPath());
+    }
+
+    @Test
+    public void keepsTheRowsQueuedWhileInterrupted() throws Exception {
+        File file = folder.newFile("stats.csv");
+        CSVWriter writer = new CSVWriter();
+        writer.startWriting(file.getPath());
+        writer.addOf("a", 1);
+        Thread.currentThread().interrupt();
+        try {
+            writer.writeData();
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        writer.stopWriting(file.getPath());
+        assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsRowsAfterStopping() throws Exception {
+        File file = folder.newFile("stats.csv");
+        CSVWriter writer = new CSVWriter();
+        writer.startWriting(file.getPath());
+        writer.addOf("a", 1);
+        writer.writeData();
+        writer.stopWriting(file.getPath());
+        writer.flush();
+        writer.stopWriting(file.getPath());
+        assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+        writer.writeData();
+    }
+}
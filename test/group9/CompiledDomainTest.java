@@ -0,0 +1,70 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompiledDomainTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackTheCachedFile() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 5, 11));
+        Path directory = folder.getRoot().toPath();
+        CompiledDomain compiled = CompiledDomain.load(domainIndex, directory);
+        CompiledDomain cached = CompiledDomain.load(domainIndex, directory);
+
+        assertSameDomain(compiled, cached);
+        for (double threshold = 0; threshold <= 1; threshold += 0.05) {
+            assertEquals(compiled.getCountBound(threshold), cached.getCountBound(threshold), 0);
+        }
+    }
+
+    @Test
+    public void recompilesACorruptedFile() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 5, 12));
+        Path directory = folder.getRoot().toPath();
+        CompiledDomain compiled = CompiledDomain.load(domainIndex, directory);
+
+        // Swap the keys of the two best outcomes, the first bytes of the keys
+        // at the end of the file
+        File file = directory.toFile().listFiles()[0];
+        int outcomes = compiled.getOutcomeIndex().size();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long keys = raf.length() - 4L * outcomes;
+            raf.seek(keys);
+            int first = Integer.reverseBytes(raf.readInt());
+            int second = Integer.reverseBytes(raf.readInt());
+            assertNotEquals(first, second);
+            raf.seek(keys);
+            raf.writeInt(Integer.reverseBytes(second));
+            raf.writeInt(Integer.reverseBytes(first));
+        }
+
+        assertSameDomain(compiled, CompiledDomain.load(domainIndex, directory));
+        // The file was compiled again
+        assertSameDomain(compiled, CompiledDomain.load(domainIndex, directory));
+    }
+
+    private static void assertSameDomain(CompiledDomain expected, CompiledDomain actual) {
+        assertEquals(expected.getContentHash(), actual.getContentHash());
+        assertEquals(expected.getMaxUtility(), actual.getMaxUtility(), 0);
+        assertEquals(expected.getMinUtility(), actual.getMinUtility(), 0);
+        OutcomeIndex expectedIndex = expected.getOutcomeIndex();
+        OutcomeIndex actualIndex = actual.getOutcomeIndex();
+        assertNotNull(actualIndex);
+        assertEquals(expectedIndex.size(), actualIndex.size());
+        for (int rank = 0; rank < expectedIndex.size(); rank++) {
+            assertEquals(expectedIndex.getKey(rank), actualIndex.getKey(rank));
+            assertEquals(expectedIndex.getUtility(rank), actualIndex.getUtility(rank), 0);
+        }
+    }
+}
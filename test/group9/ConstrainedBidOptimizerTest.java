@@ -0,0 +1,100 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class ConstrainedBidOptimizerTest {
+
+    @Test
+    public void findsBidsAboveTheThreshold() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(5, 4, 1));
+        ConstrainedBidOptimizer optimizer = new ConstrainedBidOptimizer(domainIndex);
+        Random random = new Random(2);
+        double[][] scores = new double[5][4];
+        int[] indices = new int[5];
+
+        for (int run = 0; run < 50; run++) {
+            for (double[] issueScores : scores) {
+                for (int v = 0; v < issueScores.length; v++) {
+                    issueScores[v] = random.nextDouble();
+                }
+            }
+            double threshold = random.nextDouble();
+            int[] best = optimizer.optimize(scores, threshold, new int[5]);
+
+            // Brute force over the 4^5 bids. A bid within one bucket per
+            // issue of the threshold may be missed, there are at least
+            // MIN_BUCKETS buckets over our utility range [0, 1].
+            double margin = 5.0 / 64;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int key = 0; key < 1024; key++) {
+                int rest = key;
+                for (int i = 0; i < 5; i++) {
+                    indices[i] = rest % 4;
+                    rest /= 4;
+                }
+                if (domainIndex.getUtility(indices) >= threshold + margin) {
+                    bestScore = Math.max(bestScore, score(scores, indices));
+                }
+            }
+
+            if (best == null) {
+                assertEquals(Double.NEGATIVE_INFINITY, bestScore, 0);
+            } else {
+                assertTrue(domainIndex.getUtility(best) >= threshold);
+                assertTrue(score(scores, best) >= bestScore - 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void stopsWhenInterrupted() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 3, 3));
+        double[][] scores = {{0, 1, 0}, {2, 0, 0}, {0, 0, 3}};
+        ConstrainedBidOptimizer optimizer = new ConstrainedBidOptimizer(domainIndex);
+        Thread.currentThread().interrupt();
+        try {
+            assertNull(optimizer.optimize(scores, 0, new int[3]));
+        } finally {
+            Thread.interrupted();
+        }
+        assertNotNull(optimizer.optimize(scores, 0, new int[3]));
+    }
+
+    @Test
+    public void findsTheBestBidWithoutThreshold() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 3, 3));
+        double[][] scores = {{0, 1, 0}, {2, 0, 0}, {0, 0, 3}};
+        int[] best = new ConstrainedBidOptimizer(domainIndex).optimize(scores, 0, new int[3]);
+        assertEquals(1, best[0]);
+        assertEquals(0, best[1]);
+        assertEquals(2, best[2]);
+    }
+
+    @Test
+    public void findsNoBidAboveTheMaximum() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 3, 4));
+        assertNull(new ConstrainedBidOptimizer(domainIndex).optimize(new double[3][3], 1.01, new int[3]));
+        assertNotNull(new ConstrainedBidOptimizer(domainIndex).optimize(new double[3][3], 0.5, new int[3]));
+    }
+
+    @Test
+    public void findsNoBidWithoutUtilities() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.profile(new double[] {0, 0},
+                new int[][] {{1, 2}, {3, 4}}));
+        assertNull(new ConstrainedBidOptimizer(domainIndex).optimize(new double[2][2], 0, new int[2]));
+    }
+
+    private static double score(double[][] scores, int[] indices) {
+        double score = 0;
+        for (int i = 0; i < indices.length; i++) {
+            score += scores[i][indices[i]];
+        }
+        return score;
+    }
+}
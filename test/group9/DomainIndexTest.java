@@ -0,0 +1,73 @@
+package group9;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import negotiator.Bid;
+import org.junit.Test;
+
+public class DomainIndexTest {
+
+    @Test
+    public void encodesEveryBidToADistinctKey() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.profile(new double[] {0.5, 0.3, 0.2},
+                new int[][] {{1, 2}, {1, 2, 3}, {1, 2, 3, 4}}));
+        assertTrue(domainIndex.canEncode());
+        assertEquals(24, domainIndex.getOutcomeCount());
+
+        Set<Long> keys = new HashSet<>();
+        int[] indices = new int[3];
+        for (indices[0] = 0; indices[0] < 2; indices[0]++) {
+            for (indices[1] = 0; indices[1] < 3; indices[1]++) {
+                for (indices[2] = 0; indices[2] < 4; indices[2]++) {
+                    long key = domainIndex.encode(indices);
+                    assertTrue(key >= 0 && key < 24);
+                    assertTrue(keys.add(key));
+                    assertArrayEquals(indices, domainIndex.decode(key, new int[3]));
+
+                    Bid bid = domainIndex.toBid(indices);
+                    assertEquals(key, domainIndex.encode(bid));
+                    assertArrayEquals(indices, domainIndex.toIndices(bid));
+                    assertEquals(key, domainIndex.fingerprint(indices));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void computesOurUtility() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.profile(new double[] {0.75, 0.25},
+                new int[][] {{2, 4}, {1, 2, 4}}));
+        int[] indices = {0, 1};
+        Bid bid = domainIndex.toBid(indices);
+        double expected = 0.75 * 0.5 + 0.25 * 0.5;
+        assertEquals(expected, domainIndex.getUtility(indices), 1e-12);
+        assertEquals(expected, domainIndex.getUtility(domainIndex.encode(indices)), 1e-12);
+        assertEquals(expected, domainIndex.getUtility(domainIndex.encode(bid)), 1e-12);
+        assertEquals(expected, domainIndex.getUtility(bid), 1e-12);
+    }
+
+    @Test
+    public void fingerprintsBidsOfLargeDomains() throws Exception {
+        // 64 issues of 4 values: 2^128 outcomes
+        double[] weights = new double[64];
+        int[][] evaluations = new int[64][];
+        for (int i = 0; i < 64; i++) {
+            weights[i] = 1.0 / 64;
+            evaluations[i] = new int[] {1, 2, 3, 4};
+        }
+        DomainIndex domainIndex = new DomainIndex(TestDomains.profile(weights, evaluations));
+        assertFalse(domainIndex.canEncode());
+        assertEquals(-1, domainIndex.getOutcomeCount());
+
+        int[] indices = new int[64];
+        long first = domainIndex.fingerprint(indices);
+        indices[63] = 1;
+        assertTrue(first != domainIndex.fingerprint(indices));
+        assertEquals(domainIndex.fingerprint(indices), domainIndex.fingerprint(indices.clone()));
+    }
+}
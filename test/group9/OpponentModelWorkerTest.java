@@ -0,0 +1,36 @@
+package group9;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import negotiator.AgentID;
+import org.junit.Test;
+
+public class OpponentModelWorkerTest {
+
+    @Test
+    public void appliesEveryQueuedBidBeforeClosing() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(5, 4, 21));
+        OpponentModel expected = new OpponentModel(domainIndex);
+        OpponentModel model = new OpponentModel(domainIndex);
+        AgentID[] agents = {new AgentID("A"), new AgentID("B")};
+        Random random = new Random(22);
+
+        OpponentModelWorker worker = new OpponentModelWorker(model, "test model");
+        int[] values = new int[domainIndex.getIssueCount()];
+        for (int n = 0; n < 5000; n++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(domainIndex.getValueCount(i));
+            }
+            AgentID agent = agents[n % agents.length];
+            expected.updateFrequencies(values, agent, 1);
+            worker.submit(values, agent, 1);
+        }
+        worker.close();
+        expected.updatePreferences();
+
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(expected.getScores()[i], model.getScores()[i], 1e-12);
+        }
+    }
+}
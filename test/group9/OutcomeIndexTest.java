@@ -0,0 +1,47 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OutcomeIndexTest {
+
+    @Test
+    public void sortsEveryBidByDecreasingUtility() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 6, 5));
+        OutcomeIndex outcomeIndex = new OutcomeIndex(domainIndex);
+        assertEquals(6 * 6 * 6 * 6, outcomeIndex.size());
+
+        boolean[] seen = new boolean[outcomeIndex.size()];
+        for (int rank = 0; rank < outcomeIndex.size(); rank++) {
+            int key = outcomeIndex.getKey(rank);
+            assertFalse(seen[key]);
+            seen[key] = true;
+            assertEquals(domainIndex.getUtility(key), outcomeIndex.getUtility(rank), 1e-12);
+            if (rank > 0) {
+                assertTrue(outcomeIndex.getUtility(rank - 1) >= outcomeIndex.getUtility(rank));
+            }
+        }
+    }
+
+    @Test
+    public void countsTheBidsAboveAThreshold() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 5, 6));
+        OutcomeIndex outcomeIndex = new OutcomeIndex(domainIndex);
+
+        for (double threshold = -0.1; threshold <= 1.1; threshold += 0.01) {
+            int expected = 0;
+            for (int key = 0; key < outcomeIndex.size(); key++) {
+                if (domainIndex.getUtility(key) >= threshold) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, outcomeIndex.countAtLeast(threshold));
+        }
+        assertEquals(outcomeIndex.size(), outcomeIndex.countAtLeast(Double.NEGATIVE_INFINITY));
+        // The best bid has utility 1
+        assertTrue(outcomeIndex.countAtLeast(1 - 1e-9) >= 1);
+    }
+}
@@ -0,0 +1,163 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class ParetoArchiveTest {
+
+    /**
+     * Additive model of fixed random scores.
+     */
+    private static class TableModel implements OpponentUtilityModel {
+        final float[][] table;
+        long version;
+
+        TableModel(DomainIndex domainIndex, Random random) {
+            table = new float[domainIndex.getIssueCount()][];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = new float[domainIndex.getValueCount(i)];
+                for (int v = 0; v < table[i].length; v++) {
+                    table[i][v] = random.nextFloat() / table.length;
+                }
+            }
+        }
+
+        @Override
+        public long GetVersion() {
+            return version;
+        }
+
+        @Override
+        public float GetPredictedUtility(int[] bidValues) {
+            float utility = 0;
+            for (int i = 0; i < table.length; i++) {
+                utility += table[i][bidValues[i]];
+            }
+            return utility;
+        }
+
+        @Override
+        public void GetPredictedUtilities(CandidateBatch bids, float[] utilities) {
+            int[] values = new int[table.length];
+            for (int c = 0; c < bids.size(); c++) {
+                utilities[c] = GetPredictedUtility(bids.getValues(c, values));
+            }
+        }
+    }
+
+    @Test
+    public void findsTheFrontierAboveAThreshold() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 5, 8));
+        Random random = new Random(9);
+        TableModel[] models = {new TableModel(domainIndex, random), new TableModel(domainIndex, random)};
+        ParetoArchive archive = new ParetoArchive(domainIndex, models);
+
+        for (int turn = 0; turn < 5; turn++) {
+            archive.addAll(randomBatch(domainIndex, random, 100));
+            double threshold = 0.8 - 0.1 * turn;
+            int[] frontier = new int[archive.size()];
+            int count = archive.getFrontier(threshold, frontier);
+
+            // A bid is on the frontier iff no bid above the threshold dominates it
+            Set<Integer> expected = new HashSet<>();
+            for (int b = 0; b < archive.size(); b++) {
+                if (archive.getOurUtility(b) >= threshold && !isDominated(archive, models.length, b)) {
+                    expected.add(b);
+                }
+            }
+            assertEquals(expected.size(), count);
+            for (int f = 0; f < count; f++) {
+                assertTrue(expected.contains(frontier[f]));
+                if (f > 0) {
+                    assertTrue(archive.getOurUtility(frontier[f - 1]) >= archive.getOurUtility(frontier[f]));
+                }
+            }
+
+            // The models change: the frontier follows
+            models[turn % 2].table[0][0] += 0.5f;
+            models[turn % 2].version++;
+        }
+    }
+
+    @Test
+    public void evictsInsteadOfIgnoringBidsOnceFull() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(6, 6, 10));
+        Random random = new Random(11);
+        TableModel[] models = {new TableModel(domainIndex, random)};
+        ParetoArchive archive = new ParetoArchive(domainIndex, models, 64);
+
+        int[] values = new int[6];
+        for (int turn = 0; turn < 20; turn++) {
+            CandidateBatch batch = randomBatch(domainIndex, random, 50);
+            archive.addAll(batch);
+            assertTrue(archive.size() <= 64);
+            int[] frontier = new int[64];
+            int count = archive.getFrontier(0.5, frontier);
+            int[] above = new int[64];
+            int aboveCount = archive.getBidsAbove(0.5, above);
+            assertTrue(count <= aboveCount);
+            for (int b = 0; b < aboveCount; b++) {
+                assertTrue(archive.getOurUtility(above[b]) >= 0.5);
+            }
+
+            // The pool stays consistent after evictions
+            for (int b = 0; b < archive.size(); b++) {
+                assertEquals(domainIndex.getUtility(domainIndex.toIndices(archive.toBid(b), values)),
+                        archive.getOurUtility(b), 1e-12);
+                assertEquals(models[0].GetPredictedUtility(values), archive.getOpponentUtility(0, b), 1e-6);
+            }
+        }
+
+        // The best bid of the last batch got in although the pool was full
+        CandidateBatch best = new CandidateBatch(domainIndex);
+        int[] bestValues = new int[6];
+        for (int i = 0; i < 6; i++) {
+            double bestUtility = -1;
+            for (int v = 0; v < 6; v++) {
+                if (domainIndex.getUtility(i, v) > bestUtility) {
+                    bestUtility = domainIndex.getUtility(i, v);
+                    bestValues[i] = v;
+                }
+            }
+        }
+        best.add(bestValues);
+        archive.addAll(best);
+        assertTrue(archive.getBidsAbove(1 - 1e-9, new int[64]) >= 1);
+        assertTrue(archive.size() <= 64);
+    }
+
+    private static boolean isDominated(ParetoArchive archive, int modelCount, int b) {
+        for (int a = 0; a < archive.size(); a++) {
+            if (archive.getOurUtility(a) < archive.getOurUtility(b)) {
+                continue;
+            }
+            boolean better = archive.getOurUtility(a) > archive.getOurUtility(b);
+            boolean worse = false;
+            for (int m = 0; m < modelCount; m++) {
+                worse |= archive.getOpponentUtility(m, a) < archive.getOpponentUtility(m, b);
+                better |= archive.getOpponentUtility(m, a) > archive.getOpponentUtility(m, b);
+            }
+            if (better && !worse) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CandidateBatch randomBatch(DomainIndex domainIndex, Random random, int size) {
+        CandidateBatch batch = new CandidateBatch(domainIndex);
+        int[] values = new int[domainIndex.getIssueCount()];
+        for (int c = 0; c < size; c++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(domainIndex.getValueCount(i));
+            }
+            batch.add(values);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,101 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProfileStoreTest {
+    /**
+     * Start of the data region: header and table of 4096 slots of 32 bytes.
+     */
+    private static final int DATA_START = 16 + 4096 * 32;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsRecordsBackAfterReopening() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("profiles.dat");
+        long first = ProfileStore.key("test", "first", 1);
+        long second = ProfileStore.key("test", "second", 1);
+        try (ProfileStore store = new ProfileStore(path)) {
+            store.write(first, bytes("one"));
+            store.write(second, bytes("two"));
+            store.write(first, bytes("three"));
+        }
+        try (ProfileStore store = new ProfileStore(path)) {
+            assertEquals("three", string(store.read(first)));
+            assertEquals("two", string(store.read(second)));
+            assertNull(store.read(ProfileStore.key("test", "third", 1)));
+        }
+    }
+
+    @Test
+    public void readsACorruptedRecordAsMissingAndRecovers() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("profiles.dat");
+        long first = ProfileStore.key("test", "first", 1);
+        long second = ProfileStore.key("test", "second", 1);
+        try (ProfileStore store = new ProfileStore(path)) {
+            store.write(first, bytes("one"));
+            store.write(second, bytes("two"));
+        }
+
+        // The first record is the first one of the data region
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(DATA_START);
+            file.write('X');
+        }
+        try (ProfileStore store = new ProfileStore(path)) {
+            assertNull(store.read(first));
+            assertEquals("two", string(store.read(second)));
+
+            // An update starts over from a missing record
+            store.update(first, previous -> previous == null ? bytes("new") : bytes("kept"));
+            assertEquals("new", string(store.read(first)));
+        }
+    }
+
+    @Test
+    public void readsACorruptedSlotAsMissing() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("profiles.dat");
+        long key = ProfileStore.key("test", "first", 1);
+        try (ProfileStore store = new ProfileStore(path)) {
+            store.write(key, bytes("one"));
+            assertNotNull(store.read(key));
+        }
+
+        // Change the length of the record in its slot, as a torn write would
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            long slot = -1;
+            for (long position = 16; position < DATA_START && slot < 0; position += 32) {
+                file.seek(position);
+                if (file.readLong() == key) {
+                    slot = position;
+                }
+            }
+            file.seek(slot + 16);
+            file.writeInt(2);
+        }
+        try (ProfileStore store = new ProfileStore(path)) {
+            assertNull(store.read(key));
+        }
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
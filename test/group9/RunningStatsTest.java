@@ -0,0 +1,67 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class RunningStatsTest {
+
+    @Test
+    public void mergesLikeAddingOneByOne() {
+        Random random = new Random(7);
+        RunningStats all = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        for (int n = 0; n < 1000; n++) {
+            double value = random.nextGaussian() * 3 + 10;
+            all.add(value);
+            (n < 300 ? first : second).add(value);
+        }
+        first.merge(second);
+
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-9);
+        assertEquals(all.getVariance(), first.getVariance(), 1e-9);
+        assertEquals(all.getMin(), first.getMin(), 0);
+        assertEquals(all.getMax(), first.getMax(), 0);
+    }
+
+    @Test
+    public void mergesEmptyStatistics() {
+        RunningStats stats = new RunningStats();
+        stats.merge(new RunningStats());
+        assertEquals(0, stats.getCount());
+        assertEquals(Double.NaN, stats.getMean(), 0);
+
+        RunningStats other = new RunningStats();
+        other.add(2);
+        other.add(4);
+        stats.merge(other);
+        assertEquals(2, stats.getCount());
+        assertEquals(3, stats.getMean(), 0);
+        assertEquals(1, stats.getVariance(), 1e-12);
+
+        stats.merge(new RunningStats());
+        assertEquals(2, stats.getCount());
+        assertEquals(3, stats.getMean(), 0);
+    }
+
+    @Test
+    public void readsWhatItWrites() {
+        RunningStats stats = new RunningStats();
+        for (int n = 1; n <= 10; n++) {
+            stats.add(n);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        stats.write(buffer);
+        buffer.flip();
+        RunningStats read = RunningStats.read(buffer);
+        assertEquals(stats.getCount(), read.getCount());
+        assertEquals(stats.getMean(), read.getMean(), 0);
+        assertEquals(stats.getVariance(), read.getVariance(), 0);
+        assertEquals(1, read.getMin(), 0);
+        assertEquals(10, read.getMax(), 0);
+    }
+}
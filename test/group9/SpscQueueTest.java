@@ -0,0 +1,64 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SpscQueueTest {
+
+    @Test
+    public void keepsTheOrderAcrossTheEndOfTheBuffer() {
+        SpscQueue<Integer> queue = new SpscQueue<>(4);
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            assertTrue(queue.offer(2 * round));
+            assertTrue(queue.offer(2 * round + 1));
+            assertEquals(next++, (int) queue.poll());
+            assertEquals(next++, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void rejectsElementsWhenFull() {
+        // Rounded up to 8
+        SpscQueue<Integer> queue = new SpscQueue<>(5);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(0, (int) queue.poll());
+        assertTrue(queue.offer(8));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(i, (int) queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void passesEveryElementInOrderBetweenTwoThreads() throws Exception {
+        int count = 200_000;
+        SpscQueue<Integer> queue = new SpscQueue<>(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        for (int expected = 0; expected < count; expected++) {
+            Integer element;
+            while ((element = queue.poll()) == null) {
+                Thread.yield();
+            }
+            assertEquals(expected, (int) element);
+        }
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package group9;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+import negotiator.DomainImpl;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Domains and profiles with given weights and evaluations, written in the
+ * Genius XML format.
+ */
+final class TestDomains {
+
+    private TestDomains() {
+    }
+
+    /**
+     * @param weights Weight of each issue.
+     * @param evaluations Evaluation of each value of each issue.
+     */
+    static AdditiveUtilitySpace profile(double[] weights, int[][] evaluations) throws Exception {
+        File directory = Files.createTempDirectory("group9-test").toFile();
+        directory.deleteOnExit();
+        File domainFile = new File(directory, "domain.xml");
+        File profileFile = new File(directory, "profile.xml");
+        domainFile.deleteOnExit();
+        profileFile.deleteOnExit();
+        write(domainFile, evaluations, null);
+        write(profileFile, evaluations, weights);
+        return new AdditiveUtilitySpace(new DomainImpl(domainFile.getPath()), profileFile.getPath());
+    }
+
+    /**
+     * Writes a domain file, or a profile file if weights are given.
+     */
+    private static void write(File file, int[][] evaluations, double[] weights) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println(weights == null ? "<negotiation_template><utility_space>" : "<utility_space>");
+            out.println("<objective index=\"0\" name=\"test\" type=\"objective\" etype=\"objective\">");
+            for (int i = 0; i < evaluations.length; i++) {
+                out.println("<issue name=\"issue" + (i + 1) + "\" index=\"" + (i + 1)
+                        + "\" etype=\"discrete\" type=\"discrete\" vtype=\"discrete\">");
+                for (int v = 0; v < evaluations[i].length; v++) {
+                    out.println("<item index=\"" + (v + 1) + "\" value=\"value" + v + "\""
+                            + (weights == null ? "" : " evaluation=\"" + evaluations[i][v] + "\"") + "/>");
+                }
+                out.println("</issue>");
+                if (weights != null) {
+                    out.println("<weight index=\"" + (i + 1) + "\" value=\"" + weights[i] + "\"/>");
+                }
+            }
+            out.println("</objective>");
+            out.println(weights == null ? "</utility_space></negotiation_template>" : "</utility_space>");
+        }
+    }
+
+    /**
+     * @return A profile of random weights and evaluations.
+     */
+    static AdditiveUtilitySpace randomProfile(int issueCount, int valueCount, long seed) throws Exception {
+        Random random = new Random(seed);
+        double[] weights = new double[issueCount];
+        int[][] evaluations = new int[issueCount][valueCount];
+        double weightSum = 0;
+        for (int i = 0; i < issueCount; i++) {
+            weights[i] = random.nextDouble() + 0.05;
+            weightSum += weights[i];
+            for (int v = 0; v < valueCount; v++) {
+                evaluations[i][v] = 1 + random.nextInt(10);
+            }
+        }
+        for (int i = 0; i < issueCount; i++) {
+            weights[i] /= weightSum;
+        }
+        return profile(weights, evaluations);
+    }
+}
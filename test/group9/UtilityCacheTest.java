@@ -0,0 +1,59 @@
+package group9;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UtilityCacheTest {
+
+    @Test
+    public void countsHitsAndMisses() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 41));
+        UtilityCache cache = new UtilityCache(domainIndex, 16);
+
+        for (int round = 0; round < 3; round++) {
+            for (long key = 0; key < 10; key++) {
+                assertEquals(domainIndex.getUtility(key), cache.getUtility(key), 0);
+            }
+        }
+        assertEquals(10, cache.getMisses());
+        assertEquals(20, cache.getHits());
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void evictsAnEntryNotReadSinceTheLastPass() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(3, 4, 42));
+        UtilityCache cache = new UtilityCache(domainIndex, 4);
+        for (long key = 0; key < 4; key++) {
+            cache.getUtility(key);
+        }
+        cache.getUtility(0);
+        assertEquals(1, cache.getHits());
+
+        // The entry read is spared by the first eviction
+        cache.getUtility(4);
+        assertEquals(4, cache.size());
+        cache.getUtility(0);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void staysBoundedAndCorrectUnderEviction() throws Exception {
+        DomainIndex domainIndex = new DomainIndex(TestDomains.randomProfile(4, 5, 43));
+        UtilityCache cache = new UtilityCache(domainIndex, 32);
+        int[] values = new int[4];
+
+        for (int n = 0; n < 5000; n++) {
+            long key = (n * 7919L) % domainIndex.getOutcomeCount();
+            domainIndex.decode(key, values);
+            double expected = domainIndex.getUtility(values);
+            assertEquals(expected, cache.getUtility(key), 0);
+            assertEquals(expected, cache.getUtility(values), 0);
+            assertTrue(cache.size() <= 32);
+        }
+        assertEquals(10000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getHits() >= 5000);
+    }
+}